@@ -0,0 +1,102 @@
+package club.p6e.websocket.client.benchmark;
+
+import club.p6e.websocket.client.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CallbackPackSync 和 CallbackPackAsync 的吞吐量和延迟
+ * 吞吐量为连续提交一批消息直到全部回调执行完成，延迟为单条消息从提交到回调执行完成
+ * @author lidashuang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CallbackPackBenchmark {
+
+    /** 每次调用提交的消息数量 */
+    private static final int BATCH = 1000;
+
+    private final AtomicLong done = new AtomicLong();
+    private final ByteBuf message = Unpooled.unreleasableBuffer(Unpooled.directBuffer(64).writeZero(64));
+    private EmbeddedChannel channel;
+    private P6eWebSocketClient client;
+    private P6eWebSocketCallback sync;
+    private P6eWebSocketCallback async;
+
+    @Setup
+    public void setup() {
+        ThreadPool.init();
+        channel = new EmbeddedChannel();
+        client = new P6eWebSocketClient(channel);
+        final P6eWebSocketCallback callback = new NoopCallback() {
+            @Override
+            public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+                done.incrementAndGet();
+            }
+        };
+        final Config config = new Config();
+        // 批量提交时不触发暂停读取
+        config.setAsyncQueueHighWaterMark(Integer.MAX_VALUE);
+        sync = new CallbackPackSync(callback);
+        async = new CallbackPackAsync(callback, channel, config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        ThreadPool.shutdown();
+    }
+
+    /**
+     * 提交消息并等待回调执行完成
+     * @param pack 回调包装
+     * @param count 消息数量
+     */
+    private void dispatch(P6eWebSocketCallback pack, int count) {
+        final long target = done.get() + count;
+        for (int i = 0; i < count; i++) {
+            pack.onMessageText(client, message);
+        }
+        while (done.get() < target) {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void syncThroughput() {
+        dispatch(sync, BATCH);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void asyncThroughput() {
+        dispatch(async, BATCH);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void syncLatency() {
+        dispatch(sync, 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void asyncLatency() {
+        dispatch(async, 1);
+    }
+}
@@ -0,0 +1,61 @@
+package club.p6e.websocket.client.benchmark;
+
+import club.p6e.websocket.client.Config;
+import club.p6e.websocket.client.Connector;
+import club.p6e.websocket.client.P6eWebSocketClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接并完成握手的速率
+ * 每次调用并发发起一批连接，全部握手完成后关闭
+ * @author lidashuang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectBenchmark {
+
+    /** 每次调用并发的连接数量，1 为串行连接 */
+    @Param({"1", "64"})
+    public int concurrency;
+
+    private EchoServer server;
+    private Connector connector;
+    private Config config;
+    private CompletableFuture<?>[] futures;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new EchoServer(0, 0);
+        connector = new Connector();
+        connector.setConnectWindow(concurrency);
+        config = new Config(server.getUrl());
+        futures = new CompletableFuture<?>[concurrency];
+    }
+
+    @TearDown
+    public void tearDown() {
+        connector.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(64)
+    public void connect() throws Exception {
+        for (int round = 0; round < 64 / concurrency; round++) {
+            for (int i = 0; i < concurrency; i++) {
+                futures[i] = connector.connectAsync(config, new NoopCallback(), false);
+            }
+            for (final CompletableFuture<?> future : futures) {
+                ((P6eWebSocketClient) future.get()).getChannel().close().sync();
+            }
+        }
+    }
+}
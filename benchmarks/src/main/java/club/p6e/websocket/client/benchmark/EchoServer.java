@@ -0,0 +1,94 @@
+package club.p6e.websocket.client.benchmark;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketDecoderConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 进程内的 WebSocket 回显服务
+ * 收到的数据帧原样返回，用于压测时代替真实的服务端
+ * @author lidashuang
+ * @version 1.0
+ */
+public class EchoServer {
+
+    /** 路径 */
+    public static final String PATH = "/ws";
+
+    /** 服务端的 EventLoopGroup */
+    private final EventLoopGroup eventLoopGroup;
+    /** 监听的 channel */
+    private final Channel channel;
+
+    /**
+     * 启动回显服务，端口为 0 时随机选择端口
+     * @param port 端口
+     * @param threads 线程数量，0 为默认数量
+     * @throws InterruptedException 等待绑定被中断
+     */
+    public EchoServer(int port, int threads) throws InterruptedException {
+        this.eventLoopGroup = new NioEventLoopGroup(threads);
+        this.channel = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 4096)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(
+                                new HttpServerCodec(),
+                                new HttpObjectAggregator(65536),
+                                new WebSocketServerProtocolHandler(PATH, null, true, false, 10000L,
+                                        WebSocketDecoderConfig.newBuilder()
+                                                .maxFramePayloadLength(1 << 24)
+                                                .withUTF8Validator(false)
+                                                .build()),
+                                new SimpleChannelInboundHandler<WebSocketFrame>() {
+                                    @Override
+                                    protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) {
+                                        ctx.writeAndFlush(frame.retainedDuplicate());
+                                    }
+
+                                    @Override
+                                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                                        // 客户端关闭时的连接重置不需要输出
+                                        ctx.close();
+                                    }
+                                });
+                    }
+                })
+                .bind(port).sync().channel();
+    }
+
+    /**
+     * 获取监听的端口
+     * @return 端口
+     */
+    public int getPort() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    /**
+     * 获取连接地址
+     * @return 连接地址
+     */
+    public String getUrl() {
+        return "ws://127.0.0.1:" + getPort() + PATH;
+    }
+
+    /**
+     * 关闭回显服务
+     */
+    public void close() {
+        channel.close().syncUninterruptibly();
+        eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+    }
+}
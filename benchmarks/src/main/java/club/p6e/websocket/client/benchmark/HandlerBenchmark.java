@@ -0,0 +1,156 @@
+package club.p6e.websocket.client.benchmark;
+
+import club.p6e.websocket.client.Config;
+import club.p6e.websocket.client.Handler;
+import club.p6e.websocket.client.P6eWebSocketClient;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.base64.Base64;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameDecoder;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handler.channelRead 分发帧的开销
+ * 使用 EmbeddedChannel，不经过网络和解码，只测量 Handler 到同步回调的部分
+ * 准备阶段在 EmbeddedChannel 中完成握手，握手完成前收到的帧会被 Handler 丢弃并关闭连接
+ * @author lidashuang
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandlerBenchmark {
+
+    /** 消息大小 */
+    @Param({"64", "4096"})
+    public int size;
+
+    /** RFC 6455 规定的握手 GUID */
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private EmbeddedChannel channel;
+    private ByteBuf payload;
+    /** 是否收到 onOpen */
+    private boolean opened;
+    /** 回调收到的消息数量 */
+    private long received;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        payload = PooledByteBufAllocator.DEFAULT.directBuffer(size).writeZero(size);
+        final Handler handler = new Handler(new Config(), new NoopCallback() {
+            @Override
+            public void onOpen(P6eWebSocketClient client) {
+                opened = true;
+            }
+
+            @Override
+            public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+                received++;
+                blackhole.consume(message);
+            }
+
+            @Override
+            public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+                received++;
+                blackhole.consume(message);
+            }
+        });
+        channel = new EmbeddedChannel(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(new HttpClientCodec(), handler);
+            }
+        });
+        handshake(channel);
+        // 帧直接从 pipeline 的头部写入，不需要握手后添加的帧解码器
+        channel.pipeline().remove(WebSocketFrameDecoder.class);
+        // 测量前确认握手完成并且帧会分发到回调，避免测量的只是写入已经关闭的 channel
+        text();
+        binary();
+        if (!opened || received != 2 || !channel.isOpen()) {
+            throw new IllegalStateException("HandlerBenchmark setup failed, opened ==> "
+                    + opened + ", received ==> " + received + ", channel open ==> " + channel.isOpen());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        payload.release();
+    }
+
+    @Benchmark
+    public void text() {
+        channel.pipeline().fireChannelRead(new TextWebSocketFrame(payload.retainedDuplicate()));
+    }
+
+    @Benchmark
+    public void binary() {
+        channel.pipeline().fireChannelRead(new BinaryWebSocketFrame(payload.retainedDuplicate()));
+    }
+
+    /**
+     * 读取客户端发出的握手请求，写入服务端的握手响应
+     * @param channel channel 对象
+     */
+    private static void handshake(EmbeddedChannel channel) {
+        final ByteBuf request = channel.readOutbound();
+        final String content;
+        try {
+            content = request.toString(CharsetUtil.US_ASCII);
+        } finally {
+            request.release();
+        }
+        String key = null;
+        for (final String line : content.split("\r\n")) {
+            if (line.regionMatches(true, 0, "sec-websocket-key:", 0, 18)) {
+                key = line.substring(18).trim();
+            }
+        }
+        if (key == null) {
+            throw new IllegalStateException("handshake request without sec-websocket-key.");
+        }
+        final String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n";
+        channel.writeInbound(Unpooled.copiedBuffer(response, CharsetUtil.US_ASCII));
+        channel.runPendingTasks();
+    }
+
+    /**
+     * 计算握手响应的 Sec-WebSocket-Accept
+     * @param key 握手请求的 Sec-WebSocket-Key
+     * @return Sec-WebSocket-Accept 的内容
+     */
+    private static String accept(String key) {
+        try {
+            final byte[] sha1 = MessageDigest.getInstance("SHA-1")
+                    .digest((key + GUID).getBytes(CharsetUtil.US_ASCII));
+            final ByteBuf encoded = Base64.encode(Unpooled.wrappedBuffer(sha1));
+            try {
+                return encoded.toString(CharsetUtil.US_ASCII);
+            } finally {
+                encoded.release();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
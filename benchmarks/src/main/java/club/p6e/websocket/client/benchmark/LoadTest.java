@@ -0,0 +1,270 @@
+package club.p6e.websocket.client.benchmark;
+
+import club.p6e.websocket.client.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压力测试工具
+ * 建立指定数量的连接，按照固定的速率轮流通过每个连接发送二进制消息，回显后计算往返延迟，
+ * 默认连接进程内的回显服务，也可以通过 --url 连接外部的回显服务
+ *
+ * java -cp target/benchmarks.jar club.p6e.websocket.client.benchmark.LoadTest \
+ *      --connections=10000 --rate=50000 --size=256 --duration=30
+ *
+ * @author lidashuang
+ * @version 1.0
+ */
+public class LoadTest {
+
+    /** 参数和默认值 */
+    private static final String[][] OPTIONS = {
+            {"connections", "1000", "连接数量"},
+            {"rate", "10000", "所有连接每秒发送的消息总数"},
+            {"size", "128", "消息大小（字节），最小为 8"},
+            {"duration", "30", "发送的持续时间（秒）"},
+            {"warmup", "5", "预热时间（秒），预热期间的数据不统计"},
+            {"window", "256", "同时进行握手的连接数量"},
+            {"async", "false", "是否使用异步回调"},
+            {"transport", "AUTO", "网络传输的实现方式，AUTO / NIO / EPOLL / IO_URING"},
+            {"url", "", "回显服务的地址，为空时启动进程内的回显服务"},
+            {"serverThreads", "0", "进程内回显服务的线程数量，0 为默认数量"},
+    };
+
+    /** 往返延迟的直方图（纳秒） */
+    private final Histogram roundTrip = new ConcurrentHistogram(3);
+    /** 收到的消息数量 */
+    private final LongAdder received = new LongAdder();
+    /** 收到的字节数 */
+    private final LongAdder receivedBytes = new LongAdder();
+    /** 开始统计的计划发送时间（纳秒），之前发送的消息不统计 */
+    private volatile long measureFrom = Long.MAX_VALUE;
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = parse(args);
+        if (options == null) {
+            usage();
+            return;
+        }
+        new LoadTest().run(options);
+        System.exit(0);
+    }
+
+    /**
+     * 解析参数
+     * @param args 参数，格式为 --key=value
+     * @return 参数，包含 --help 或者未知参数时为 null
+     */
+    private static Map<String, String> parse(String[] args) {
+        final Map<String, String> result = new HashMap<>();
+        for (final String[] option : OPTIONS) {
+            result.put(option[0], option[1]);
+        }
+        for (final String arg : args) {
+            final int index = arg.indexOf('=');
+            if (!arg.startsWith("--") || index < 0 || !result.containsKey(arg.substring(2, index))) {
+                return null;
+            }
+            result.put(arg.substring(2, index), arg.substring(index + 1));
+        }
+        return result;
+    }
+
+    /**
+     * 输出使用说明
+     */
+    private static void usage() {
+        System.out.println("usage: LoadTest [--key=value ...]");
+        for (final String[] option : OPTIONS) {
+            System.out.printf("  --%-14s %s（默认 %s）%n", option[0], option[2], option[1]);
+        }
+    }
+
+    /**
+     * 执行压力测试
+     * @param options 参数
+     * @throws Exception 连接或者等待失败
+     */
+    private void run(Map<String, String> options) throws Exception {
+        final int connections = Integer.parseInt(options.get("connections"));
+        final long rate = Long.parseLong(options.get("rate"));
+        final int size = Math.max(8, Integer.parseInt(options.get("size")));
+        final long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+        final long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+        final boolean async = Boolean.parseBoolean(options.get("async"));
+        final EchoServer server = options.get("url").isEmpty()
+                ? new EchoServer(0, Integer.parseInt(options.get("serverThreads"))) : null;
+        final String url = server == null ? options.get("url") : server.getUrl();
+        if (async) {
+            ThreadPool.init();
+        }
+
+        final Connector connector = new Connector(Transport.valueOf(options.get("transport")));
+        connector.setConnectWindow(Integer.parseInt(options.get("window")));
+        System.out.println("transport: " + connector.getTransport() + ", url: " + url);
+
+        // 连接前的内存
+        final long heapBefore = usedHeap();
+        final long directBefore = usedDirect();
+
+        // 建立所有连接
+        final Config config = new Config(url);
+        final Histogram connectLatency = new ConcurrentHistogram(3);
+        final P6eWebSocketCallback callback = new NoopCallback() {
+            @Override
+            public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+                if (message.readableBytes() >= 8) {
+                    final long intended = message.getLong(message.readerIndex());
+                    if (intended >= measureFrom) {
+                        roundTrip.recordValue(Math.max(0, System.nanoTime() - intended));
+                        received.increment();
+                        receivedBytes.add(message.readableBytes());
+                    }
+                }
+            }
+        };
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<P6eWebSocketClient>[] futures = new CompletableFuture[connections];
+        final long connectStart = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            final long start = System.nanoTime();
+            futures[i] = connector.connectAsync(config, callback, async);
+            futures[i].thenRun(() -> connectLatency.recordValue(System.nanoTime() - start));
+        }
+        final P6eWebSocketClient[] clients = new P6eWebSocketClient[connections];
+        int failed = 0;
+        for (int i = 0; i < connections; i++) {
+            try {
+                clients[i] = futures[i].get();
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        final long connectElapsed = System.nanoTime() - connectStart;
+        final int connected = connections - failed;
+        System.out.printf("connect: %d ok, %d failed, %.1f s, %.0f conn/s%n", connected, failed,
+                connectElapsed / 1e9, connected / (connectElapsed / 1e9));
+        printPercentiles("connect latency (ms, including window wait)", connectLatency, 1e6);
+        if (connected == 0) {
+            shutdown(connector, server);
+            return;
+        }
+
+        // 连接后的内存，包括客户端和进程内的回显服务
+        final long heapAfter = usedHeap();
+        final long directAfter = usedDirect();
+        System.out.printf("memory per connection: heap %.1f KiB, pooled direct %.1f KiB%s%n",
+                (heapAfter - heapBefore) / 1024.0 / connected, (directAfter - directBefore) / 1024.0 / connected,
+                server == null ? "" : " (client and embedded server)");
+
+        // 按照固定的速率发送，发送时间使用计划时间，避免发送端落后时低估延迟
+        final P6eWebSocketClient[] active = new P6eWebSocketClient[connected];
+        for (int i = 0, j = 0; i < connections; i++) {
+            if (clients[i] != null) {
+                active[j++] = clients[i];
+            }
+        }
+        final long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        final long start = System.nanoTime();
+        final long end = start + warmup + duration;
+        measureFrom = start + warmup;
+        long sent = 0;
+        long dropped = 0;
+        for (long n = 0; ; n++) {
+            final long intended = start + n * interval;
+            if (intended >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            final P6eWebSocketClient client = active[(int) (n % connected)];
+            if (!client.getChannel().isWritable()) {
+                // 写缓冲区已满，跳过本条消息并记录
+                if (intended >= measureFrom) {
+                    dropped++;
+                }
+                continue;
+            }
+            final ByteBuf message = client.getChannel().alloc().buffer(size);
+            message.writeLong(intended).writeZero(size - 8);
+            client.sendMessageBinary(message);
+            if (intended >= measureFrom) {
+                sent++;
+            }
+        }
+        // 等待最后的消息返回
+        Thread.sleep(1000);
+        measureFrom = Long.MAX_VALUE;
+        final double seconds = duration / 1e9;
+
+        System.out.printf("throughput: sent %d, received %d, dropped %d (unwritable), %.0f msg/s, %.2f MiB/s%n",
+                sent, received.sum(), dropped, received.sum() / seconds, receivedBytes.sum() / seconds / 1024 / 1024);
+        printPercentiles("round trip (us)", roundTrip, 1e3);
+        shutdown(connector, server);
+    }
+
+    /**
+     * 输出直方图的百分位
+     * @param title 标题
+     * @param histogram 直方图
+     * @param scale 输出时的除数
+     */
+    private static void printPercentiles(String title, Histogram histogram, double scale) {
+        System.out.printf("%s: count %d, p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, p99.99 %.1f, max %.1f%n",
+                title, histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / scale,
+                histogram.getValueAtPercentile(90) / scale,
+                histogram.getValueAtPercentile(99) / scale,
+                histogram.getValueAtPercentile(99.9) / scale,
+                histogram.getValueAtPercentile(99.99) / scale,
+                histogram.getMaxValue() / scale);
+    }
+
+    /**
+     * 获取 GC 后使用的堆内存
+     * @return 使用的堆内存（字节）
+     * @throws InterruptedException 等待被中断
+     */
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * 获取池化分配器使用的直接内存
+     * @return 使用的直接内存（字节）
+     */
+    private static long usedDirect() {
+        final ByteBufAllocatorMetric metric = PooledByteBufAllocator.DEFAULT.metric();
+        return metric.usedDirectMemory();
+    }
+
+    /**
+     * 关闭连接器和回显服务
+     * @param connector 连接器
+     * @param server 进程内的回显服务，可以为 null
+     */
+    private static void shutdown(Connector connector, EchoServer server) {
+        connector.shutdown();
+        if (server != null) {
+            server.close();
+        }
+        ThreadPool.shutdown();
+    }
+}
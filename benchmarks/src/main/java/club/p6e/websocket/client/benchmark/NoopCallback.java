@@ -0,0 +1,45 @@
+package club.p6e.websocket.client.benchmark;
+
+import club.p6e.websocket.client.P6eWebSocketCallback;
+import club.p6e.websocket.client.P6eWebSocketClient;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 不做任何处理的回调，需要统计时覆盖对应的方法
+ * @author lidashuang
+ * @version 1.0
+ */
+public class NoopCallback implements P6eWebSocketCallback {
+
+    @Override
+    public void onOpen(P6eWebSocketClient client) {
+    }
+
+    @Override
+    public void onClose(P6eWebSocketClient client) {
+    }
+
+    @Override
+    public void onError(P6eWebSocketClient client, Throwable throwable) {
+    }
+
+    @Override
+    public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+    }
+
+    @Override
+    public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+    }
+
+    @Override
+    public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+    }
+
+    @Override
+    public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+    }
+
+    @Override
+    public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+    }
+}
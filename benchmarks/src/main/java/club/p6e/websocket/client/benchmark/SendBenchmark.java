@@ -0,0 +1,79 @@
+package club.p6e.websocket.client.benchmark;
+
+import club.p6e.websocket.client.Config;
+import club.p6e.websocket.client.Connector;
+import club.p6e.websocket.client.P6eWebSocketClient;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sendMessageText 和 sendMessageBinary 发送到进程内回显服务的吞吐量
+ * channel 不可写时等待，避免写缓冲区无限增长
+ * @author lidashuang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendBenchmark {
+
+    /** 消息大小 */
+    @Param({"64", "4096"})
+    public int size;
+
+    private EchoServer server;
+    private Connector connector;
+    private P6eWebSocketClient client;
+    private Channel channel;
+    private String text;
+    private ByteBuf binary;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new EchoServer(0, 1);
+        connector = new Connector();
+        client = connector.connectAsync(new Config(server.getUrl()), new NoopCallback(), false).get();
+        channel = client.getChannel();
+        final char[] chars = new char[size];
+        Arrays.fill(chars, 'a');
+        text = new String(chars);
+        binary = PooledByteBufAllocator.DEFAULT.directBuffer(size).writeZero(size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        connector.shutdown();
+        server.close();
+        binary.release();
+    }
+
+    /**
+     * 等待 channel 可写
+     */
+    private void awaitWritable() {
+        while (!channel.isWritable()) {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    public void sendMessageText() {
+        awaitWritable();
+        client.sendMessageText(text);
+    }
+
+    @Benchmark
+    public void sendMessageBinary() {
+        awaitWritable();
+        client.sendMessageBinary(binary.retainedDuplicate());
+    }
+}
@@ -1,62 +1,177 @@
 package club.p6e.websocket.client;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * 异步包装
+ * 每个连接对应一个实例，回调按照消息到达的顺序在线程池中执行
  * @author lidashuang
  * @version 1.0
  */
-public class CallbackPackAsync implements P6eWebSocketCallback {
+public class CallbackPackAsync implements P6eWebSocketBatchCallback {
 
     /** 回调对象 */
     private final P6eWebSocketCallback callback;
 
+    /** 当前连接的任务邮箱 */
+    private final Mailbox mailbox;
+
+    /** 连接的指标，为 null 时不记录排队和回调耗时 */
+    private final P6eWebSocketMetrics metrics;
+
+    /** 回调是否接管消息 ByteBuf 的所有权 */
+    private final boolean ownership;
+
     /**
      * 构造方法初始化回调对象
      * @param callback 回调对象
      */
     public CallbackPackAsync(P6eWebSocketCallback callback) {
         this.callback = callback;
+        this.mailbox = new Mailbox(ThreadPool::execute);
+        this.metrics = null;
+        this.ownership = false;
+    }
+
+    /**
+     * 构造方法初始化回调对象
+     * 积压的消息超过配置的高水位时暂停读取 channel
+     * @param callback 回调对象
+     * @param channel channel 对象
+     * @param config 配置文件对象
+     */
+    public CallbackPackAsync(P6eWebSocketCallback callback, Channel channel, Config config) {
+        this(callback, channel, config, ThreadPool::execute);
+    }
+
+    /**
+     * 构造方法初始化回调对象
+     * @param callback 回调对象
+     * @param channel channel 对象
+     * @param config 配置文件对象
+     * @param executor 执行回调的线程池
+     */
+    protected CallbackPackAsync(P6eWebSocketCallback callback, Channel channel, Config config, Executor executor) {
+        this.callback = callback;
+        this.mailbox = new Mailbox(executor, channel,
+                config.getAsyncQueueHighWaterMark(), config.getAsyncQueueLowWaterMark());
+        this.metrics = channel.attr(P6eWebSocketMetrics.KEY).get();
+        this.ownership = config.isMessageOwnership();
+    }
+
+    /**
+     * 提交消息的回调任务
+     * Handler 在回调返回后会 release 消息，所以交给线程池前先 retain，回调执行结束后再 release；
+     * 回调接管所有权时 Handler 不会 release，消息直接交给回调
+     * @param message 消息内容
+     * @param task 回调任务
+     */
+    private void execute(ByteBuf message, Runnable task) {
+        if (ownership) {
+            execute(task);
+        } else {
+            message.retain();
+            execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    message.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * 提交回调任务，需要记录指标时记录排队和回调耗时
+     * @param task 回调任务
+     */
+    private void execute(Runnable task) {
+        if (metrics == null) {
+            mailbox.execute(task);
+        } else {
+            final long enqueued = System.nanoTime();
+            mailbox.execute(() -> {
+                final long start = System.nanoTime();
+                metrics.onQueueWait(start - enqueued);
+                try {
+                    task.run();
+                } finally {
+                    // 回调抛出异常时同样记录，避免耗时的统计只包含成功的回调
+                    metrics.onCallback(System.nanoTime() - start);
+                }
+            });
+        }
     }
 
     @Override
     public void onOpen(P6eWebSocketClient client) {
-        ThreadPool.execute(() -> callback.onOpen(client));
+        execute(() -> callback.onOpen(client));
     }
 
     @Override
     public void onClose(P6eWebSocketClient client) {
-        ThreadPool.execute(() -> callback.onClose(client));
+        execute(() -> callback.onClose(client));
     }
 
     @Override
     public void onError(P6eWebSocketClient client, Throwable throwable) {
-        ThreadPool.execute(() -> callback.onError(client, throwable));
+        execute(() -> callback.onError(client, throwable));
     }
 
     @Override
     public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
-        ThreadPool.execute(() -> callback.onMessageText(client, message));
+        execute(message, () -> callback.onMessageText(client, message));
     }
 
     @Override
     public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
-        ThreadPool.execute(() -> callback.onMessageBinary(client, message));
+        execute(message, () -> callback.onMessageBinary(client, message));
     }
 
     @Override
     public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
-        ThreadPool.execute(() -> callback.onMessagePong(client, message));
+        execute(message, () -> callback.onMessagePong(client, message));
     }
 
     @Override
     public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
-        ThreadPool.execute(() -> callback.onMessagePing(client, message));
+        execute(message, () -> callback.onMessagePing(client, message));
     }
 
     @Override
     public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
-        ThreadPool.execute(() -> callback.onMessageContinuation(client, message));
+        execute(message, () -> callback.onMessageContinuation(client, message));
+    }
+
+    @Override
+    public void onMessageBatch(P6eWebSocketClient client, List<WebSocketFrame> frames) {
+        final P6eWebSocketBatchCallback callback = (P6eWebSocketBatchCallback) this.callback;
+        if (ownership) {
+            execute(() -> callback.onMessageBatch(client, frames));
+        } else {
+            // 和单条消息一样，交给线程池前 retain，回调执行结束后 release
+            for (final WebSocketFrame frame : frames) {
+                frame.retain();
+            }
+            execute(() -> {
+                try {
+                    callback.onMessageBatch(client, frames);
+                } finally {
+                    for (final WebSocketFrame frame : frames) {
+                        frame.release();
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean isBatch() {
+        return P6eWebSocketBatchCallback.isBatch(callback);
     }
 }
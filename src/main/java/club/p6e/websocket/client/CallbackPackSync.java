@@ -1,62 +1,151 @@
 package club.p6e.websocket.client;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.List;
 
 /**
  * 同步包装
  * @author lidashuang
  * @version 1.0
  */
-public class CallbackPackSync implements P6eWebSocketCallback {
+public class CallbackPackSync implements P6eWebSocketBatchCallback {
 
     /** 回调对象 */
     private final P6eWebSocketCallback callback;
 
+    /** 连接的指标，为 null 时不记录回调耗时 */
+    private final P6eWebSocketMetrics metrics;
+
     /**
      * 构造方法初始化回调对象
      * @param callback 回调对象
      */
     public CallbackPackSync(P6eWebSocketCallback callback) {
+        this(callback, null);
+    }
+
+    /**
+     * 构造方法初始化回调对象
+     * @param callback 回调对象
+     * @param metrics 连接的指标，为 null 时不记录回调耗时
+     */
+    public CallbackPackSync(P6eWebSocketCallback callback, P6eWebSocketMetrics metrics) {
         this.callback = callback;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 获取开始时间
+     * @return 开始时间（纳秒），不记录回调耗时时为 0
+     */
+    private long start() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * 记录回调耗时，回调抛出异常时同样记录
+     * @param start 开始时间（纳秒）
+     */
+    private void record(long start) {
+        if (metrics != null) {
+            metrics.onCallback(System.nanoTime() - start);
+        }
     }
 
     @Override
     public void onOpen(P6eWebSocketClient client) {
-        callback.onOpen(client);
+        final long start = start();
+        try {
+            callback.onOpen(client);
+        } finally {
+            record(start);
+        }
     }
 
     @Override
     public void onClose(P6eWebSocketClient client) {
-        callback.onClose(client);
+        final long start = start();
+        try {
+            callback.onClose(client);
+        } finally {
+            record(start);
+        }
     }
 
     @Override
     public void onError(P6eWebSocketClient client, Throwable throwable) {
-        callback.onError(client, throwable);
+        final long start = start();
+        try {
+            callback.onError(client, throwable);
+        } finally {
+            record(start);
+        }
     }
 
     @Override
     public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
-        callback.onMessageText(client, message);
+        final long start = start();
+        try {
+            callback.onMessageText(client, message);
+        } finally {
+            record(start);
+        }
     }
 
     @Override
     public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
-        callback.onMessageBinary(client, message);
+        final long start = start();
+        try {
+            callback.onMessageBinary(client, message);
+        } finally {
+            record(start);
+        }
     }
 
     @Override
     public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
-        callback.onMessagePong(client, message);
+        final long start = start();
+        try {
+            callback.onMessagePong(client, message);
+        } finally {
+            record(start);
+        }
     }
 
     @Override
     public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
-        callback.onMessagePing(client, message);
+        final long start = start();
+        try {
+            callback.onMessagePing(client, message);
+        } finally {
+            record(start);
+        }
     }
 
     @Override
     public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
-        callback.onMessageContinuation(client, message);
+        final long start = start();
+        try {
+            callback.onMessageContinuation(client, message);
+        } finally {
+            record(start);
+        }
+    }
+
+    @Override
+    public void onMessageBatch(P6eWebSocketClient client, List<WebSocketFrame> frames) {
+        final long start = start();
+        try {
+            ((P6eWebSocketBatchCallback) callback).onMessageBatch(client, frames);
+        } finally {
+            record(start);
+        }
+    }
+
+    @Override
+    public boolean isBatch() {
+        return P6eWebSocketBatchCallback.isBatch(callback);
     }
 }
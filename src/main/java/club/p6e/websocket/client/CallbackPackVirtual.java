@@ -0,0 +1,24 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.Channel;
+
+/**
+ * 虚拟线程包装
+ * 每个连接对应一个实例，回调按照消息到达的顺序在虚拟线程中执行，适合回调中有阻塞 IO 的场景，
+ * 运行环境不支持虚拟线程时和 CallbackPackAsync 一样在 ThreadPool 中执行
+ * @author lidashuang
+ * @version 1.0
+ */
+public class CallbackPackVirtual extends CallbackPackAsync {
+
+    /**
+     * 构造方法初始化回调对象
+     * 积压的消息超过配置的高水位时暂停读取 channel
+     * @param callback 回调对象
+     * @param channel channel 对象
+     * @param config 配置文件对象
+     */
+    public CallbackPackVirtual(P6eWebSocketCallback callback, Channel channel, Config config) {
+        super(callback, channel, config, VirtualThreads::execute);
+    }
+}
@@ -0,0 +1,82 @@
+package club.p6e.websocket.client;
+
+/**
+ * permessage-deflate (RFC 7692) 压缩扩展的配置
+ * @author lidashuang
+ * @version 1.0
+ */
+public class Compression {
+
+    /** 压缩级别，取值 0 ~ 9 */
+    private int compressionLevel = 6;
+    /** 是否允许服务端指定客户端的窗口大小 (client_max_window_bits) */
+    private boolean allowClientWindowSize = true;
+    /** 请求服务端使用的窗口大小 (server_max_window_bits)，取值 8 ~ 15 */
+    private int serverMaxWindowBits = 15;
+    /** 是否允许客户端不保留压缩上下文 (client_no_context_takeover) */
+    private boolean clientNoContextTakeover = false;
+    /** 是否请求服务端不保留压缩上下文 (server_no_context_takeover) */
+    private boolean serverNoContextTakeover = false;
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("compression level must be between 0 and 9.");
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    public boolean isAllowClientWindowSize() {
+        return allowClientWindowSize;
+    }
+
+    public void setAllowClientWindowSize(boolean allowClientWindowSize) {
+        this.allowClientWindowSize = allowClientWindowSize;
+    }
+
+    public int getServerMaxWindowBits() {
+        return serverMaxWindowBits;
+    }
+
+    public void setServerMaxWindowBits(int serverMaxWindowBits) {
+        if (serverMaxWindowBits < 8 || serverMaxWindowBits > 15) {
+            throw new IllegalArgumentException("server max window bits must be between 8 and 15.");
+        }
+        this.serverMaxWindowBits = serverMaxWindowBits;
+    }
+
+    public boolean isClientNoContextTakeover() {
+        return clientNoContextTakeover;
+    }
+
+    public void setClientNoContextTakeover(boolean clientNoContextTakeover) {
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+
+    public boolean isServerNoContextTakeover() {
+        return serverNoContextTakeover;
+    }
+
+    public void setServerNoContextTakeover(boolean serverNoContextTakeover) {
+        this.serverNoContextTakeover = serverNoContextTakeover;
+    }
+
+    @Override
+    public String toString() {
+        return "{"
+                + "\"compressionLevel\":"
+                + compressionLevel
+                + ",\"allowClientWindowSize\":"
+                + allowClientWindowSize
+                + ",\"serverMaxWindowBits\":"
+                + serverMaxWindowBits
+                + ",\"clientNoContextTakeover\":"
+                + clientNoContextTakeover
+                + ",\"serverNoContextTakeover\":"
+                + serverNoContextTakeover
+                + "}";
+    }
+}
@@ -0,0 +1,131 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.AttributeKey;
+
+/**
+ * 压缩的统计数据
+ * 分别统计网络上传输的字节数和解压后的字节数，用于判断压缩是否划算
+ * @author lidashuang
+ * @version 1.0
+ */
+public class CompressionStats {
+
+    /** channel 上绑定的压缩统计数据 */
+    public static final AttributeKey<CompressionStats> KEY = AttributeKey.valueOf("P6E_WS_COMPRESSION_STATS");
+
+    /** 接收的压缩后的字节数 */
+    private volatile long inboundWireBytes = 0;
+    /** 接收的解压后的字节数 */
+    private volatile long inboundPayloadBytes = 0;
+    /** 发送的压缩后的字节数 */
+    private volatile long outboundWireBytes = 0;
+    /** 发送的压缩前的字节数 */
+    private volatile long outboundPayloadBytes = 0;
+
+    public long getInboundWireBytes() {
+        return inboundWireBytes;
+    }
+
+    public long getInboundPayloadBytes() {
+        return inboundPayloadBytes;
+    }
+
+    public long getOutboundWireBytes() {
+        return outboundWireBytes;
+    }
+
+    public long getOutboundPayloadBytes() {
+        return outboundPayloadBytes;
+    }
+
+    /**
+     * 接收消息的压缩比例
+     * @return 压缩后的字节数 / 解压后的字节数，没有数据时为 1
+     */
+    public double getInboundRatio() {
+        final long payload = inboundPayloadBytes;
+        return payload == 0 ? 1 : (double) inboundWireBytes / payload;
+    }
+
+    /**
+     * 发送消息的压缩比例
+     * @return 压缩后的字节数 / 压缩前的字节数，没有数据时为 1
+     */
+    public double getOutboundRatio() {
+        final long payload = outboundPayloadBytes;
+        return payload == 0 ? 1 : (double) outboundWireBytes / payload;
+    }
+
+    /**
+     * 创建统计网络上传输字节数的处理器，放在压缩扩展处理器之前
+     * @return 处理器
+     */
+    public ChannelDuplexHandler wireCounter() {
+        return new Counter(true);
+    }
+
+    /**
+     * 创建统计解压后字节数的处理器，放在压缩扩展处理器之后
+     * @return 处理器
+     */
+    public ChannelDuplexHandler payloadCounter() {
+        return new Counter(false);
+    }
+
+    @Override
+    public String toString() {
+        return "{"
+                + "\"inboundWireBytes\":"
+                + inboundWireBytes
+                + ",\"inboundPayloadBytes\":"
+                + inboundPayloadBytes
+                + ",\"outboundWireBytes\":"
+                + outboundWireBytes
+                + ",\"outboundPayloadBytes\":"
+                + outboundPayloadBytes
+                + "}";
+    }
+
+    /**
+     * 统计字节数的处理器，只在 EventLoop 线程中执行
+     */
+    private class Counter extends ChannelDuplexHandler {
+
+        /** 是否统计网络上传输的字节数 */
+        private final boolean wire;
+
+        private Counter(boolean wire) {
+            this.wire = wire;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof WebSocketFrame) {
+                final int bytes = ((WebSocketFrame) msg).content().readableBytes();
+                if (wire) {
+                    inboundWireBytes += bytes;
+                } else {
+                    inboundPayloadBytes += bytes;
+                }
+            }
+            super.channelRead(ctx, msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof WebSocketFrame) {
+                final int bytes = ((WebSocketFrame) msg).content().readableBytes();
+                if (wire) {
+                    outboundWireBytes += bytes;
+                } else {
+                    outboundPayloadBytes += bytes;
+                }
+            }
+            super.write(ctx, msg, promise);
+        }
+    }
+}
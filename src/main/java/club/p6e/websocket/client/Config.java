@@ -65,9 +65,23 @@ public class Config {
      * @version 1.0
      */
     public static class Certificate {
-        /** 证书路径 */
+        /** 证书路径，PEM 或者 DER 格式的 X.509 证书文件 */
         private String path;
 
+        /**
+         * 构造方法初始化
+         */
+        public Certificate() {
+        }
+
+        /**
+         * 构造方法初始化
+         * @param path 证书路径
+         */
+        public Certificate(String path) {
+            this.path = path;
+        }
+
         public String getPath() {
             return path;
         }
@@ -75,6 +89,11 @@ public class Config {
         public void setPath(String path) {
             this.path = path;
         }
+
+        @Override
+        public String toString() {
+            return "\"" + path + "\"";
+        }
     }
 
     /**
@@ -135,6 +154,44 @@ public class Config {
     private final Map<String, Object> httpHeaders = new HashMap<>();
     /** 自定义证书 */
     private final List<Certificate> certificates = new ArrayList<>();
+    /** 异步回调积压消息的高水位，达到后暂停读取 */
+    private int asyncQueueHighWaterMark = 1024;
+    /** 异步回调积压消息的低水位，回落后恢复读取 */
+    private int asyncQueueLowWaterMark = 256;
+    /** 断线重连的策略，为 null 时不重连，第一次握手成功后才生效 */
+    private ReconnectPolicy reconnectPolicy;
+    /** permessage-deflate 压缩扩展的配置，为 null 时不启用压缩 */
+    private Compression compression;
+    /** 是否将分片的消息合并后再回调 */
+    private boolean fragmentAggregation = false;
+    /** 合并后消息的最大字节数，超过时关闭连接 */
+    private int maxMessageSize = 1024 * 1024;
+    /** 单个帧的最大字节数 */
+    private int maxFramePayloadLength = 65536;
+    /** 发送的帧是否进行掩码处理，RFC 6455 要求客户端必须掩码 */
+    private boolean performMasking = true;
+    /** 是否允许接收的帧掩码标记与预期不一致 */
+    private boolean allowMaskMismatch = false;
+    /** 是否校验接收的文本帧为合法的 UTF-8 编码 */
+    private boolean utf8Validation = false;
+    /** 是否合并 flush */
+    private boolean flushConsolidation = false;
+    /** 合并 flush 时累计多少次 flush 后立即 flush */
+    private int flushMaxMessages = 256;
+    /** 合并 flush 时延迟的微秒数，小于等于 0 时在当前 EventLoop 任务结束后 flush */
+    private long flushDelayMicros = 0;
+    /** 定时发送 Ping 的间隔（毫秒），用于测量往返延迟，0 表示不发送 */
+    private long pingInterval = 0;
+    /** 读空闲的超时时间（毫秒），超时判定对端失效并关闭连接，0 表示不检测 */
+    private long readIdleTimeout = 0;
+    /** 写空闲的超时时间（毫秒），超时发送 Ping 保持连接，0 表示不检测 */
+    private long writeIdleTimeout = 0;
+    /** 回调是否接管消息 ByteBuf 的所有权，为 true 时由回调负责 release，为 false 时回调结束后自动 release */
+    private boolean messageOwnership = false;
+    /** 异步回调是否在虚拟线程中执行，运行环境不支持虚拟线程时在线程池中执行 */
+    private boolean virtualThread = false;
+    /** WebSocket 握手的超时时间（毫秒），TCP 连接建立后开始计时，超时关闭连接，0 表示不超时 */
+    private long handshakeTimeout = 10000;
 
     /**
      * 构造方法初始化
@@ -367,6 +424,171 @@ public class Config {
         this.certificates.clear();
     }
 
+    public int getAsyncQueueHighWaterMark() {
+        return asyncQueueHighWaterMark;
+    }
+
+    public void setAsyncQueueHighWaterMark(int asyncQueueHighWaterMark) {
+        this.asyncQueueHighWaterMark = asyncQueueHighWaterMark;
+    }
+
+    public int getAsyncQueueLowWaterMark() {
+        return asyncQueueLowWaterMark;
+    }
+
+    public void setAsyncQueueLowWaterMark(int asyncQueueLowWaterMark) {
+        this.asyncQueueLowWaterMark = asyncQueueLowWaterMark;
+    }
+
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    public void setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+        this.reconnectPolicy = reconnectPolicy;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public boolean isFragmentAggregation() {
+        return fragmentAggregation;
+    }
+
+    public void setFragmentAggregation(boolean fragmentAggregation) {
+        this.fragmentAggregation = fragmentAggregation;
+    }
+
+    public int getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    public void setMaxMessageSize(int maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    public int getMaxFramePayloadLength() {
+        return maxFramePayloadLength;
+    }
+
+    public void setMaxFramePayloadLength(int maxFramePayloadLength) {
+        this.maxFramePayloadLength = maxFramePayloadLength;
+    }
+
+    public boolean isPerformMasking() {
+        return performMasking;
+    }
+
+    public void setPerformMasking(boolean performMasking) {
+        this.performMasking = performMasking;
+    }
+
+    public boolean isAllowMaskMismatch() {
+        return allowMaskMismatch;
+    }
+
+    public void setAllowMaskMismatch(boolean allowMaskMismatch) {
+        this.allowMaskMismatch = allowMaskMismatch;
+    }
+
+    public boolean isUtf8Validation() {
+        return utf8Validation;
+    }
+
+    public void setUtf8Validation(boolean utf8Validation) {
+        this.utf8Validation = utf8Validation;
+    }
+
+    public boolean isFlushConsolidation() {
+        return flushConsolidation;
+    }
+
+    public void setFlushConsolidation(boolean flushConsolidation) {
+        this.flushConsolidation = flushConsolidation;
+    }
+
+    public int getFlushMaxMessages() {
+        return flushMaxMessages;
+    }
+
+    public void setFlushMaxMessages(int flushMaxMessages) {
+        this.flushMaxMessages = flushMaxMessages;
+    }
+
+    public long getFlushDelayMicros() {
+        return flushDelayMicros;
+    }
+
+    public void setFlushDelayMicros(long flushDelayMicros) {
+        this.flushDelayMicros = flushDelayMicros;
+    }
+
+    public long getPingInterval() {
+        return pingInterval;
+    }
+
+    public void setPingInterval(long pingInterval) {
+        this.pingInterval = pingInterval;
+    }
+
+    public long getReadIdleTimeout() {
+        return readIdleTimeout;
+    }
+
+    public void setReadIdleTimeout(long readIdleTimeout) {
+        this.readIdleTimeout = readIdleTimeout;
+    }
+
+    public long getWriteIdleTimeout() {
+        return writeIdleTimeout;
+    }
+
+    public void setWriteIdleTimeout(long writeIdleTimeout) {
+        this.writeIdleTimeout = writeIdleTimeout;
+    }
+
+    /**
+     * 是否启用心跳
+     * @return 是否启用心跳
+     */
+    public boolean isHeartbeat() {
+        return pingInterval > 0 || readIdleTimeout > 0 || writeIdleTimeout > 0;
+    }
+
+    public boolean isMessageOwnership() {
+        return messageOwnership;
+    }
+
+    public void setMessageOwnership(boolean messageOwnership) {
+        this.messageOwnership = messageOwnership;
+    }
+
+    public boolean isVirtualThread() {
+        return virtualThread;
+    }
+
+    /**
+     * 设置异步回调是否在虚拟线程中执行
+     * 只对异步回调（isAsync 为 true）生效，开启后通过同步回调连接时连接器抛出 IllegalArgumentException
+     * @param virtualThread 是否在虚拟线程中执行
+     */
+    public void setVirtualThread(boolean virtualThread) {
+        this.virtualThread = virtualThread;
+    }
+
+    public long getHandshakeTimeout() {
+        return handshakeTimeout;
+    }
+
+    public void setHandshakeTimeout(long handshakeTimeout) {
+        this.handshakeTimeout = handshakeTimeout;
+    }
+
     /**
      * 输出 URI 对象
      * @return URI 对象
@@ -453,6 +675,44 @@ public class Config {
                 + httpHeaders
                 + ",\"certificates\":"
                 + certificates
+                + ",\"asyncQueueHighWaterMark\":"
+                + asyncQueueHighWaterMark
+                + ",\"asyncQueueLowWaterMark\":"
+                + asyncQueueLowWaterMark
+                + ",\"reconnectPolicy\":"
+                + reconnectPolicy
+                + ",\"compression\":"
+                + compression
+                + ",\"fragmentAggregation\":"
+                + fragmentAggregation
+                + ",\"maxMessageSize\":"
+                + maxMessageSize
+                + ",\"maxFramePayloadLength\":"
+                + maxFramePayloadLength
+                + ",\"performMasking\":"
+                + performMasking
+                + ",\"allowMaskMismatch\":"
+                + allowMaskMismatch
+                + ",\"utf8Validation\":"
+                + utf8Validation
+                + ",\"flushConsolidation\":"
+                + flushConsolidation
+                + ",\"flushMaxMessages\":"
+                + flushMaxMessages
+                + ",\"flushDelayMicros\":"
+                + flushDelayMicros
+                + ",\"pingInterval\":"
+                + pingInterval
+                + ",\"readIdleTimeout\":"
+                + readIdleTimeout
+                + ",\"writeIdleTimeout\":"
+                + writeIdleTimeout
+                + ",\"messageOwnership\":"
+                + messageOwnership
+                + ",\"virtualThread\":"
+                + virtualThread
+                + ",\"handshakeTimeout\":"
+                + handshakeTimeout
                 + "}";
     }
 }
@@ -2,19 +2,46 @@ package club.p6e.websocket.client;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.websocketx.Utf8FrameValidator;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+import io.netty.handler.ssl.OpenSsl;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.GlobalEventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author lidashuang
@@ -25,6 +52,12 @@ public class Connector {
     /** 缓存所有的连接器 */
     private static final List<Connector> CACHE = new CopyOnWriteArrayList<>();
 
+    /** TLS 会话缓存的数量 */
+    private static final long SSL_SESSION_CACHE_SIZE = 4096;
+
+    /** TLS 会话缓存的时间（秒） */
+    private static final long SSL_SESSION_TIMEOUT = 3600;
+
     /** 日志注入对象 */
     private static final Logger LOGGER = LoggerFactory.getLogger(Connector.class);
 
@@ -37,6 +70,42 @@ public class Connector {
     /** Netty 的 EventLoopGroup */
     private final EventLoopGroup eventLoopGroup;
 
+    /** 网络传输的实现方式 */
+    private final Transport transport;
+
+    /** EventLoopGroup 是否为共享的 EventLoopGroup */
+    private final boolean shared;
+
+    /** 连接器创建的所有 channel，共享 EventLoopGroup 时关闭连接器需要逐个关闭 */
+    private final ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    /** 握手完成的在线客户端 */
+    private final P6eWebSocketClientRegistry registry = new P6eWebSocketClientRegistry();
+
+    /** 是否已经关闭 */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /** 指标收集的扩展点，为 null 时不收集指标 */
+    private volatile P6eWebSocketMetricsProvider metricsProvider;
+
+    /** 连接器的指标 */
+    private volatile P6eWebSocketMetrics metrics;
+
+    /** 缓存的 SslContext，KEY 为证书路径 */
+    private final Map<String, SslContext> sslContexts = new ConcurrentHashMap<>();
+
+    /** 异步连接同时进行中的最大数量 */
+    private volatile int connectWindow = Integer.MAX_VALUE;
+
+    /** 异步连接正在进行中的数量 */
+    private final AtomicInteger connectInFlight = new AtomicInteger();
+
+    /** 等待发起的异步连接任务 */
+    private final Queue<Runnable> connectPending = new ConcurrentLinkedQueue<>();
+
+    /** 发起排队中的异步连接的请求次数，不为 0 时已经有线程在发起，其它线程只增加次数 */
+    private final AtomicInteger connectDrainRequests = new AtomicInteger();
+
     /**
      * 获取所有的连接器
      * @return 连接器集合
@@ -47,9 +116,29 @@ public class Connector {
 
     /**
      * 构造方法初始化
+     * 自动选择当前环境可用的网络传输实现，使用共享的 EventLoopGroup
      */
     public Connector() {
-        this(new Bootstrap(), new NioEventLoopGroup(), NioSocketChannel.class);
+        this(Transport.AUTO);
+    }
+
+    /**
+     * 构造方法初始化
+     * 使用共享的 EventLoopGroup
+     * @param transport 网络传输的实现方式
+     */
+    public Connector(Transport transport) {
+        this(transport, true);
+    }
+
+    /**
+     * 构造方法初始化
+     * @param transport 网络传输的实现方式
+     * @param shared 是否使用共享的 EventLoopGroup，否则创建独占的 EventLoopGroup
+     */
+    public Connector(Transport transport, boolean shared) {
+        this(new Bootstrap(), shared ? SharedEventLoopGroup.acquire(transport)
+                : transport.resolve().newEventLoopGroup(0, null), transport.resolve().channelClass(), shared);
     }
 
     /**
@@ -84,6 +173,19 @@ public class Connector {
      * @param channelClass channel 的类型
      */
     public Connector(Bootstrap bootstrap, EventLoopGroup eventLoopGroup, Class<? extends Channel> channelClass) {
+        this(bootstrap, eventLoopGroup, channelClass, false);
+    }
+
+    /**
+     * 构造方法初始化
+     * @param bootstrap Netty 的 Bootstrap
+     * @param eventLoopGroup Netty 的 EventLoopGroup
+     * @param channelClass channel 的类型
+     * @param shared EventLoopGroup 是否为共享的 EventLoopGroup
+     */
+    private Connector(Bootstrap bootstrap, EventLoopGroup eventLoopGroup,
+                      Class<? extends Channel> channelClass, boolean shared) {
+        this.shared = shared;
         this.bootstrap = bootstrap;
         this.eventLoopGroup = eventLoopGroup;
         this.bootstrap
@@ -92,12 +194,14 @@ public class Connector {
                 .option(ChannelOption.AUTO_READ, true);
         this.bootstrap.group(eventLoopGroup);
         this.bootstrap.channel(channelClass);
+        this.transport = Transport.of(channelClass);
+        this.transport.options(this.bootstrap);
 
         this.id = UUID.randomUUID().toString().replace("-", "");
 
         // 添加到缓存中
         CACHE.add(this);
-        LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector created successfully.");
+        LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector created successfully, transport: " + transport + ".");
     }
 
     /**
@@ -110,36 +214,239 @@ public class Connector {
         this.bootstrap.option(option, value);
     }
 
+    /**
+     * 设置指标收集的扩展点，只对之后创建的连接生效
+     * @param metricsProvider 指标收集的扩展点，为 null 时不收集指标
+     */
+    public void setMetricsProvider(P6eWebSocketMetricsProvider metricsProvider) {
+        this.metrics = metricsProvider == null ? null : metricsProvider.connector(this);
+        this.metricsProvider = metricsProvider;
+    }
+
+    /**
+     * 获取连接器的指标
+     * @return 连接器的指标，没有设置指标收集的扩展点时为 null
+     */
+    public P6eWebSocketMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取在线客户端的注册表
+     * @return 在线客户端的注册表
+     */
+    public P6eWebSocketClientRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * 获取网络传输的实现方式
+     * @return 网络传输的实现方式
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * 设置 epoll 的 busy poll 时间，其他实现方式忽略
+     * busy poll 以 CPU 换取更低的接收延迟
+     * @param micros busy poll 的微秒数，0 表示关闭
+     */
+    public void setBusyPoll(int micros) {
+        if (transport == Transport.EPOLL) {
+            this.bootstrap.option(EpollChannelOption.SO_BUSY_POLL, micros);
+        } else {
+            LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> busy poll is only supported by epoll transport.");
+        }
+    }
+
+    /**
+     * 设置异步连接同时进行中的最大数量
+     * 超过数量的连接会排队，等待前面的连接握手完成或者失败后再发起
+     * @param connectWindow 最大数量
+     */
+    public void setConnectWindow(int connectWindow) {
+        if (connectWindow <= 0) {
+            throw new IllegalArgumentException("connect window must be greater than 0.");
+        }
+        this.connectWindow = connectWindow;
+        drainConnectPending();
+    }
+
+    /**
+     * 获取异步连接同时进行中的最大数量
+     * @return 最大数量
+     */
+    public int getConnectWindow() {
+        return connectWindow;
+    }
+
+    /**
+     * 创建 Channel 的初始化对象
+     * @param config 配置文件对象
+     * @param callback 回调函数
+     * @param isAsync 是否异步回调
+     * @param handshakeFuture 握手完成的通知对象
+     * @param reconnector 断线重连的执行对象
+     * @return Channel 的初始化对象
+     */
+    private ChannelInitializer<Channel> initializer(Config config, P6eWebSocketCallback callback,
+                                                    boolean isAsync, CompletableFuture<P6eWebSocketClient> handshakeFuture,
+                                                    Reconnector reconnector) {
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel channel) throws SSLException {
+                channels.add(channel);
+                channel.attr(P6eWebSocketClientRegistry.KEY).set(registry);
+                // WSS 协议连接
+                if (config.getAgreement() == Config.Agreement.WSS) {
+                    try {
+                        channel.pipeline().addLast(sslContext(config)
+                                .newHandler(channel.alloc(), config.getHost(), config.getPort()));
+                    } catch (SSLException e) {
+                        LOGGER.info("[ P6eWebSocketClient ] ==> connector connect ssl exception, " + e.getMessage());
+                        throw e;
+                    }
+                }
+                channel.pipeline().addLast(new HttpClientCodec());
+                final Compression compression = config.getCompression();
+                if (compression != null) {
+                    // 压缩扩展处理器的前后分别统计压缩后和压缩前的字节数
+                    final CompressionStats compressionStats = new CompressionStats();
+                    channel.attr(CompressionStats.KEY).set(compressionStats);
+                    channel.pipeline().addLast(compressionStats.wireCounter());
+                    channel.pipeline().addLast(new WebSocketClientExtensionHandler(
+                            new PerMessageDeflateClientExtensionHandshaker(
+                                    compression.getCompressionLevel(),
+                                    compression.isAllowClientWindowSize(),
+                                    compression.getServerMaxWindowBits(),
+                                    compression.isClientNoContextTakeover(),
+                                    compression.isServerNoContextTakeover())));
+                    channel.pipeline().addLast(compressionStats.payloadCounter());
+                }
+                if (config.isHeartbeat()) {
+                    final Heartbeat heartbeat = new Heartbeat(config.getPingInterval());
+                    channel.attr(Heartbeat.KEY).set(heartbeat);
+                    channel.pipeline().addLast(new IdleStateHandler(config.getReadIdleTimeout(),
+                            config.getWriteIdleTimeout(), 0, TimeUnit.MILLISECONDS));
+                    channel.pipeline().addLast(heartbeat);
+                }
+                if (config.isUtf8Validation()) {
+                    // 校验解压后的文本帧，不合法时关闭连接
+                    channel.pipeline().addLast(new Utf8FrameValidator());
+                }
+                if (config.isFragmentAggregation()) {
+                    // 分片的消息合并为一个 CompositeByteBuf，合并后按照文本或者二进制消息回调
+                    channel.pipeline().addLast(new WebSocketFrameAggregator(config.getMaxMessageSize()));
+                }
+                if (reconnector != null) {
+                    channel.attr(Reconnector.KEY).set(reconnector);
+                }
+                final P6eWebSocketMetrics connectionMetrics = metricsProvider == null
+                        ? null : metricsProvider.connection(metrics, channel);
+                if (connectionMetrics != null) {
+                    channel.attr(P6eWebSocketMetrics.KEY).set(connectionMetrics);
+                    channel.pipeline().addLast(new MetricsHandler(connectionMetrics));
+                }
+                final P6eWebSocketCallback pack;
+                if (!isAsync) {
+                    pack = new CallbackPackSync(callback, connectionMetrics);
+                } else if (config.isVirtualThread()) {
+                    pack = new CallbackPackVirtual(callback, channel, config);
+                } else {
+                    pack = new CallbackPackAsync(callback, channel, config);
+                }
+                channel.pipeline().addLast(new Handler(config, pack, handshakeFuture, reconnector));
+                if (config.isFlushConsolidation()) {
+                    // 放在最后，所有通过 channel 写出的消息都会经过
+                    channel.pipeline().addLast(new FlushConsolidator(
+                            config.getFlushMaxMessages(), config.getFlushDelayMicros()));
+                }
+            }
+        };
+    }
+
+    /**
+     * 获取配置文件对应的 SslContext
+     * 相同证书配置的连接共用同一个 SslContext，重复连接时可以复用 TLS 会话
+     * @param config 配置文件对象
+     * @return SslContext 对象
+     * @throws SSLException 创建 SslContext 失败
+     */
+    private SslContext sslContext(Config config) throws SSLException {
+        final StringBuilder key = new StringBuilder();
+        for (final Config.Certificate certificate : config.getCertificates()) {
+            key.append(certificate.getPath()).append(File.pathSeparatorChar);
+        }
+        final SslContext cache = sslContexts.get(key.toString());
+        if (cache != null) {
+            return cache;
+        }
+        final SslContextBuilder builder = SslContextBuilder.forClient()
+                .sslProvider(OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK)
+                .sessionCacheSize(SSL_SESSION_CACHE_SIZE)
+                .sessionTimeout(SSL_SESSION_TIMEOUT);
+        if (config.getCertificates().isEmpty()) {
+            // 没有自定义证书时信任所有证书
+            builder.trustManager(InsecureTrustManagerFactory.INSTANCE);
+        } else {
+            builder.trustManager(certificates(config.getCertificates()));
+        }
+        final SslContext sslContext = builder.build();
+        final SslContext previous = sslContexts.putIfAbsent(key.toString(), sslContext);
+        LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector ssl context created, provider: "
+                + (OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK) + ".");
+        return previous == null ? sslContext : previous;
+    }
+
+    /**
+     * 读取自定义证书
+     * @param certificates 自定义证书
+     * @return X509 证书
+     * @throws SSLException 读取证书失败
+     */
+    private static X509Certificate[] certificates(List<Config.Certificate> certificates) throws SSLException {
+        final List<X509Certificate> result = new ArrayList<>();
+        try {
+            final CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            for (final Config.Certificate certificate : certificates) {
+                try (InputStream inputStream = new FileInputStream(certificate.getPath())) {
+                    for (final java.security.cert.Certificate item : factory.generateCertificates(inputStream)) {
+                        result.add((X509Certificate) item);
+                    }
+                }
+            }
+        } catch (IOException | CertificateException e) {
+            throw new SSLException("read certificate exception, " + e.getMessage(), e);
+        }
+        return result.toArray(new X509Certificate[0]);
+    }
+
+    /**
+     * 检查配置文件和回调方式的组合
+     * @param config 配置文件对象
+     * @param isAsync 是否异步回调
+     */
+    private static void check(Config config, boolean isAsync) {
+        if (config.isVirtualThread() && !isAsync) {
+            throw new IllegalArgumentException("virtual thread callbacks require isAsync = true.");
+        }
+    }
+
     /**
      * 根据配置文件连接
+     * 每次连接使用克隆的 Bootstrap，多个线程可以同时通过同一个连接器连接
      * @param config 配置文件对象
      */
     public Channel connect(Config config, P6eWebSocketCallback callback, boolean isAsync) {
+        check(config, isAsync);
         ChannelFuture channelFuture = null;
         try {
-            this.bootstrap.handler(new ChannelInitializer<Channel>() {
-                @Override
-                protected void initChannel(Channel channel) {
-                    // WSS 协议连接
-                    if (config.getAgreement() == Config.Agreement.WSS) {
-                        // 这里预留处理自定义证书的问题
-                        try {
-                            final SslContext sslContext =
-                                    SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build();
-                            channel.pipeline().addLast(sslContext.newHandler(channel.alloc()));
-                        } catch (SSLException e) {
-                            e.printStackTrace();
-                            LOGGER.info("[ P6eWebSocketClient ] ==> connector connect ssl exception, " + e.getMessage());
-                        }
-                    }
-                    channel.pipeline().addLast(new HttpClientCodec());
-                    channel.pipeline().addLast(new Handler(config,
-                            isAsync ? new CallbackPackAsync(callback) : new CallbackPackSync(callback)));
-                }
-            });
+            final Bootstrap bootstrap = this.bootstrap.clone()
+                    .handler(initializer(config, callback, isAsync, null, reconnector(config, callback, isAsync)));
             LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector connect " +
                     "( host: " + config.getHost() + " , port: " + config.getPort() + " ) start...");
-            channelFuture = this.bootstrap.connect(config.getHost(), config.getPort()).sync();
+            channelFuture = bootstrap.connect(config.getHost(), config.getPort()).sync();
             LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector connect " +
                     "( host: " + config.getHost() + " , port: " + config.getPort() + " ) successfully.");
         } catch (Exception e) {
@@ -148,6 +455,124 @@ public class Connector {
         return channelFuture == null ? null : channelFuture.channel();
     }
 
+    /**
+     * 根据配置文件异步连接
+     * 返回的 CompletableFuture 在 WebSocket 握手完成后才会完成，
+     * TCP 连接失败、握手失败、握手超时或者握手前连接被关闭都会以异常的形式完成
+     * @param config 配置文件对象
+     * @param callback 回调函数
+     * @param isAsync 是否异步回调
+     * @return 握手完成的通知对象
+     */
+    public CompletableFuture<P6eWebSocketClient> connectAsync(
+            Config config, P6eWebSocketCallback callback, boolean isAsync) {
+        check(config, isAsync);
+        final CompletableFuture<P6eWebSocketClient> handshakeFuture = new CompletableFuture<>();
+        connectPending.offer(() -> {
+            // 握手完成或者失败后释放占用的连接数量
+            handshakeFuture.whenComplete((client, throwable) -> {
+                connectInFlight.decrementAndGet();
+                drainConnectPending();
+            });
+            dial(config, callback, isAsync, handshakeFuture);
+        });
+        drainConnectPending();
+        return handshakeFuture;
+    }
+
+    /**
+     * 在连接数量允许的范围内发起排队中的异步连接
+     * 同步失败的连接会在发起的过程中完成并再次调用这里，此时只增加请求次数后返回，
+     * 由外层的循环继续发起，避免每个排队的连接增加一层调用栈
+     */
+    private void drainConnectPending() {
+        if (connectDrainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requests = 1;
+        do {
+            for (;;) {
+                final int inFlight = connectInFlight.get();
+                if (inFlight >= connectWindow || connectPending.isEmpty()) {
+                    break;
+                }
+                if (connectInFlight.compareAndSet(inFlight, inFlight + 1)) {
+                    final Runnable task = connectPending.poll();
+                    if (task == null) {
+                        connectInFlight.decrementAndGet();
+                    } else {
+                        task.run();
+                    }
+                }
+            }
+            requests = connectDrainRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    /**
+     * 发起不阻塞的连接
+     * @param config 配置文件对象
+     * @param callback 回调函数
+     * @param isAsync 是否异步回调
+     * @param handshakeFuture 握手完成的通知对象
+     */
+    private void dial(Config config, P6eWebSocketCallback callback,
+                      boolean isAsync, CompletableFuture<P6eWebSocketClient> handshakeFuture) {
+        try {
+            if (config.getAgreement() == Config.Agreement.WSS) {
+                // 提前创建 SslContext，证书错误时直接通知失败的原因
+                sslContext(config);
+            }
+            final Bootstrap bootstrap = this.bootstrap.clone().handler(initializer(config, callback, isAsync,
+                    handshakeFuture, reconnector(config, callback, isAsync)));
+            LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector async connect " +
+                    "( host: " + config.getHost() + " , port: " + config.getPort() + " ) start...");
+            bootstrap.connect(config.getHost(), config.getPort()).addListener((ChannelFutureListener) future -> {
+                if (!future.isSuccess()) {
+                    LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector async connect " +
+                            "( host: " + config.getHost() + " , port: " + config.getPort() + " ) failed.");
+                    handshakeFuture.completeExceptionally(future.cause());
+                }
+            });
+        } catch (Exception e) {
+            handshakeFuture.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 根据配置文件创建断线重连的执行对象
+     * @param config 配置文件对象
+     * @param callback 回调函数
+     * @param isAsync 是否异步回调
+     * @return 断线重连的执行对象，没有配置重连策略时为 null
+     */
+    private Reconnector reconnector(Config config, P6eWebSocketCallback callback, boolean isAsync) {
+        return config.getReconnectPolicy() == null ? null : new Reconnector(this, config, callback, isAsync);
+    }
+
+    /**
+     * 断线重连
+     * 新的 channel 注册在原 channel 的 EventLoop 上
+     * @param reconnector 断线重连的执行对象
+     * @param eventLoop 原 channel 的 EventLoop
+     */
+    void reconnect(Reconnector reconnector, EventLoop eventLoop) {
+        final Config config = reconnector.getConfig();
+        final Bootstrap bootstrap = this.bootstrap.clone(eventLoop)
+                .handler(initializer(config, reconnector.getCallback(), reconnector.isAsync(), null, reconnector));
+        LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector reconnect " +
+                "( host: " + config.getHost() + " , port: " + config.getPort() + " ) start...");
+        bootstrap.connect(config.getHost(), config.getPort());
+    }
+
+    /**
+     * 是否已经关闭
+     * @return 是否已经关闭
+     */
+    public boolean isShutdown() {
+        return closed.get();
+    }
+
     /**
      * 关闭连接器的连接
      */
@@ -164,7 +589,16 @@ public class Connector {
             // 从缓存中删除
             CACHE.remove(this);
         }
-        this.eventLoopGroup.shutdownGracefully();
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (shared) {
+            // 共享的 EventLoopGroup 只关闭当前连接器的 channel，最后一个连接器释放时关闭 EventLoopGroup
+            this.channels.close();
+            SharedEventLoopGroup.release(this.eventLoopGroup);
+        } else {
+            this.eventLoopGroup.shutdownGracefully();
+        }
         LOGGER.info("[ P6eWebSocketClient ] (" + this.id + ") ==> connector closed.");
     }
 }
@@ -0,0 +1,94 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并 flush 的处理器
+ * 累计的 flush 次数达到上限时立即 flush，否则延迟到当前 EventLoop 任务结束或者指定的微秒数后统一 flush，
+ * 多个消息帧可以通过一次 gather write 写出
+ * 处理器只在 EventLoop 线程中执行
+ * @author lidashuang
+ * @version 1.0
+ */
+public class FlushConsolidator extends ChannelOutboundHandlerAdapter {
+
+    /** 累计多少次 flush 后立即 flush */
+    private final int maxMessages;
+    /** 延迟 flush 的微秒数，小于等于 0 时在当前 EventLoop 任务结束后 flush */
+    private final long delayMicros;
+
+    /** 累计的 flush 次数 */
+    private int pending = 0;
+    /** 是否已经提交了延迟 flush 的任务 */
+    private boolean scheduled = false;
+    /** 当前的 ChannelHandlerContext */
+    private ChannelHandlerContext ctx;
+    /** 延迟 flush 的任务 */
+    private final Runnable flushTask = () -> {
+        scheduled = false;
+        flushNow();
+    };
+
+    /**
+     * 构造方法初始化
+     * @param maxMessages 累计多少次 flush 后立即 flush
+     * @param delayMicros 延迟 flush 的微秒数
+     */
+    public FlushConsolidator(int maxMessages, long delayMicros) {
+        if (maxMessages <= 0) {
+            throw new IllegalArgumentException("max messages must be greater than 0.");
+        }
+        this.maxMessages = maxMessages;
+        this.delayMicros = delayMicros;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        if (++pending >= maxMessages) {
+            flushNow();
+        } else if (!scheduled) {
+            scheduled = true;
+            if (delayMicros <= 0) {
+                ctx.channel().eventLoop().execute(flushTask);
+            } else {
+                ctx.channel().eventLoop().schedule(flushTask, delayMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushNow();
+        super.disconnect(ctx, promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushNow();
+        super.close(ctx, promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        flushNow();
+    }
+
+    /**
+     * 立即 flush 累计的消息
+     */
+    private void flushNow() {
+        if (pending > 0) {
+            pending = 0;
+            ctx.flush();
+        }
+    }
+}
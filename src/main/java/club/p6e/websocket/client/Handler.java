@@ -7,10 +7,16 @@ import io.netty.channel.ChannelInboundHandler;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.websocketx.*;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.ScheduledFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 处理器
@@ -28,6 +34,22 @@ public class Handler implements ChannelInboundHandler {
     private final P6eWebSocketCallback callback;
     /** Web Socket Client Handshake 对象 */
     private final WebSocketClientHandshaker webSocketClientHandshaker;
+    /** 握手完成的通知对象 */
+    private final CompletableFuture<P6eWebSocketClient> handshakeFuture;
+    /** 断线重连的执行对象 */
+    private final Reconnector reconnector;
+    /** 回调是否接管消息 ByteBuf 的所有权 */
+    private final boolean ownership;
+    /** 是否批量回调消息 */
+    private final boolean batch;
+    /** 握手的超时时间（毫秒） */
+    private final long handshakeTimeout;
+    /** 握手的超时任务 */
+    private ScheduledFuture<?> handshakeTimeoutFuture;
+    /** 当前读取中等待批量回调的帧 */
+    private List<WebSocketFrame> frames;
+    /** 是否已经连接成功 */
+    private boolean active = false;
 
     /**
      * 构造方法初始化
@@ -35,16 +57,49 @@ public class Handler implements ChannelInboundHandler {
      * @param callback 回调函数
      */
     public Handler(Config config, P6eWebSocketCallback callback) {
-        LOGGER.debug("P6eWebSocketClient handshake request http uri ==> " + config.uri());
-        LOGGER.debug("P6eWebSocketClient handshake request http version ==> " + config.version());
-        LOGGER.debug("P6eWebSocketClient handshake request http headers ==> \n\n" + config.httpHeaders() + "\n");
+        this(config, callback, null);
+    }
+
+    /**
+     * 构造方法初始化
+     * @param config 配置文件
+     * @param callback 回调函数
+     * @param handshakeFuture 握手完成的通知对象，可以为 null
+     */
+    public Handler(Config config, P6eWebSocketCallback callback,
+                   CompletableFuture<P6eWebSocketClient> handshakeFuture) {
+        this(config, callback, handshakeFuture, null);
+    }
+
+    /**
+     * 构造方法初始化
+     * @param config 配置文件
+     * @param callback 回调函数
+     * @param handshakeFuture 握手完成的通知对象，可以为 null
+     * @param reconnector 断线重连的执行对象，可以为 null
+     */
+    public Handler(Config config, P6eWebSocketCallback callback,
+                   CompletableFuture<P6eWebSocketClient> handshakeFuture, Reconnector reconnector) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("P6eWebSocketClient handshake request http uri ==> {}", config.uri());
+            LOGGER.debug("P6eWebSocketClient handshake request http version ==> {}", config.version());
+            LOGGER.debug("P6eWebSocketClient handshake request http headers ==> \n\n{}\n", config.httpHeaders());
+        }
         this.callback = callback;
+        this.handshakeFuture = handshakeFuture;
+        this.reconnector = reconnector;
+        this.ownership = config.isMessageOwnership();
+        this.batch = P6eWebSocketBatchCallback.isBatch(callback);
+        this.handshakeTimeout = config.getHandshakeTimeout();
         this.webSocketClientHandshaker = WebSocketClientHandshakerFactory.newHandshaker(
                 config.uri(),
                 config.version(),
                 null,
-                false,
-                config.httpHeaders()
+                config.getCompression() != null,
+                config.httpHeaders(),
+                config.getMaxFramePayloadLength(),
+                config.isPerformMasking(),
+                config.isAllowMaskMismatch()
         );
     }
 
@@ -55,46 +110,72 @@ public class Handler implements ChannelInboundHandler {
      */
     private P6eWebSocketClient getClient(ChannelHandlerContext ctx) {
         if (client == null) {
-            createClient(ctx);
+            // Handler 只在 channel 的 EventLoop 线程中执行，不需要加锁
+            client = new P6eWebSocketClient(ctx.channel());
         }
         return client;
     }
 
     /**
-     * 创建客户端对象
+     * 输出调试日志，没有开启调试日志时不会创建任何对象
      * @param ctx ChannelHandlerContext 对象
+     * @param event 事件名称
      */
-    private synchronized void createClient(ChannelHandlerContext ctx) {
-        if (client == null) {
-            client = new P6eWebSocketClient(ctx.channel());
+    private void debug(ChannelHandlerContext ctx, String event) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("( {} ) [ {} ] ==> {}", getClient(ctx).getId(), event, ctx);
         }
     }
 
     @Override
     public void channelRegistered(ChannelHandlerContext ctx) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ channelRegistered ] ==> " + ctx);
+        debug(ctx, "channelRegistered");
     }
 
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ channelUnregistered ] ==> " + ctx);
+        debug(ctx, "channelUnregistered");
     }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ channelActive ] ==> " + ctx);
+        debug(ctx, "channelActive");
+        active = true;
         // 初始化 WebSocketClientHandshake
         webSocketClientHandshaker.handshake(ctx.channel());
+        if (handshakeTimeout > 0) {
+            // 对端接受 TCP 连接但不响应握手时，超时通知失败并关闭连接，释放占用的连接数量
+            handshakeTimeoutFuture = ctx.channel().eventLoop().schedule(() -> {
+                if (!webSocketClientHandshaker.isHandshakeComplete()) {
+                    final String error = "P6eWebSocketClient handshake timed out after " + handshakeTimeout + " ms.";
+                    LOGGER.info(error);
+                    if (handshakeFuture != null) {
+                        handshakeFuture.completeExceptionally(new TimeoutException(error));
+                    }
+                    ctx.close();
+                }
+            }, handshakeTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 取消握手的超时任务
+     */
+    private void cancelHandshakeTimeout() {
+        if (handshakeTimeoutFuture != null) {
+            handshakeTimeoutFuture.cancel(false);
+            handshakeTimeoutFuture = null;
+        }
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ channelInactive ] ==> " + ctx);
+        debug(ctx, "channelInactive");
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ channelRead ] ==> " + ctx);
+        debug(ctx, "channelRead");
         // 判断是否为 HttpResponse 对象
         if (msg instanceof HttpResponse) {
             // 如果为 HttpResponse 对象需要转换为 FullHttpResponse 对象进行处理
@@ -105,7 +186,9 @@ public class Handler implements ChannelInboundHandler {
         // 判断是否为 FullHttpResponse 对象
         if (msg instanceof FullHttpResponse) {
             final FullHttpResponse fullHttpResponse = (FullHttpResponse) msg;
-            LOGGER.debug("P6eWebSocketClient handshake response HTTP ==> \n\n" + fullHttpResponse + "\n");
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("P6eWebSocketClient handshake response HTTP ==> \n\n{}\n", fullHttpResponse);
+            }
             try {
                 // 判断是是否握手成功
                 if (webSocketClientHandshaker.isHandshakeComplete()) {
@@ -118,8 +201,19 @@ public class Handler implements ChannelInboundHandler {
                 } else {
                     // 握手成功，结束握手
                     webSocketClientHandshaker.finishHandshake(ctx.channel(), fullHttpResponse);
-                    client = new P6eWebSocketClient(ctx.channel());
+                    cancelHandshakeTimeout();
+                    final P6eWebSocketClient client = getClient(ctx);
+                    final P6eWebSocketClientRegistry registry = ctx.channel().attr(P6eWebSocketClientRegistry.KEY).get();
+                    if (registry != null) {
+                        registry.register(client);
+                    }
+                    if (reconnector != null) {
+                        reconnector.onOpen();
+                    }
                     callback.onOpen(client);
+                    if (handshakeFuture != null) {
+                        handshakeFuture.complete(client);
+                    }
                 }
             } finally {
                 // 释放缓存
@@ -128,26 +222,47 @@ public class Handler implements ChannelInboundHandler {
         } else if (msg instanceof WebSocketFrame){
             // 判断是否为 WebSocketFrame 对象
             final WebSocketFrame frame = (WebSocketFrame) msg;
-            if (client == null) {
-                final String error = "P6eWebSocketClient connection exception, client is null.";
-                LOGGER.error(error);
-                exceptionCaught(ctx, new IOException(error));
-            } else {
-                final ByteBuf byteBuf = frame.content();
-                if (frame instanceof BinaryWebSocketFrame) {
-                    // byteBuf 资源需要在使用完成后手动回收
-                    callback.onMessageBinary(client, byteBuf);
-                } else if (frame instanceof TextWebSocketFrame) {
-                    callback.onMessageText(client, byteBuf);
-                } else if (frame instanceof PongWebSocketFrame) {
-                    // byteBuf 资源需要在使用完成后手动回收
-                    callback.onMessagePong(client, byteBuf);
-                } else if (frame instanceof PingWebSocketFrame) {
-                    // byteBuf 资源需要在使用完成后手动回收
-                    callback.onMessagePing(client, byteBuf);
-                } else if (frame instanceof ContinuationWebSocketFrame) {
-                    // byteBuf 资源需要在使用完成后手动回收
-                    callback.onMessageContinuation(client, byteBuf);
+            // 没有交给回调的帧需要在这里回收
+            boolean release = true;
+            try {
+                if (!webSocketClientHandshaker.isHandshakeComplete()) {
+                    // 握手完成前不会回调 onOpen，收到的帧不交给回调，回收后关闭连接
+                    final String error = "P6eWebSocketClient connection exception, frame received before handshake complete.";
+                    LOGGER.error(error);
+                    exceptionCaught(ctx, new IOException(error));
+                } else {
+                    final ByteBuf byteBuf = frame.content();
+                    if (batch && (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame
+                            || frame instanceof ContinuationWebSocketFrame)) {
+                        // 批量回调时先保存，在 channelReadComplete 中一起回调和回收
+                        if (frames == null) {
+                            frames = new ArrayList<>();
+                        }
+                        frames.add(frame);
+                        release = false;
+                        return;
+                    }
+                    // 回调接管所有权时 byteBuf 资源需要在使用完成后手动回收，否则回调返回后自动回收
+                    if (frame instanceof BinaryWebSocketFrame) {
+                        release = !ownership;
+                        callback.onMessageBinary(client, byteBuf);
+                    } else if (frame instanceof TextWebSocketFrame) {
+                        release = !ownership;
+                        callback.onMessageText(client, byteBuf);
+                    } else if (frame instanceof PongWebSocketFrame) {
+                        release = !ownership;
+                        callback.onMessagePong(client, byteBuf);
+                    } else if (frame instanceof PingWebSocketFrame) {
+                        release = !ownership;
+                        callback.onMessagePing(client, byteBuf);
+                    } else if (frame instanceof ContinuationWebSocketFrame) {
+                        release = !ownership;
+                        callback.onMessageContinuation(client, byteBuf);
+                    }
+                }
+            } finally {
+                if (release) {
+                    frame.release();
                 }
             }
         }
@@ -155,36 +270,69 @@ public class Handler implements ChannelInboundHandler {
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ channelReadComplete ] ==> " + ctx);
+        debug(ctx, "channelReadComplete");
+        if (frames != null) {
+            final List<WebSocketFrame> frames = this.frames;
+            this.frames = null;
+            try {
+                ((P6eWebSocketBatchCallback) callback).onMessageBatch(client, frames);
+            } finally {
+                if (!ownership) {
+                    for (final WebSocketFrame frame : frames) {
+                        frame.release();
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ userEventTriggered ] ==> " + ctx);
+        debug(ctx, "userEventTriggered");
     }
 
     @Override
     public void channelWritabilityChanged(ChannelHandlerContext ctx) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ channelWritabilityChanged ] ==> " + ctx);
+        debug(ctx, "channelWritabilityChanged");
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ handlerAdded ] ==> " + ctx);
+        getClient(ctx);
+        debug(ctx, "handlerAdded");
     }
 
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ handlerRemoved ] ==> " + ctx);
+        debug(ctx, "handlerRemoved");
+        cancelHandshakeTimeout();
+        if (frames != null) {
+            // 连接关闭时还没有回调的帧直接回收
+            for (final WebSocketFrame frame : frames) {
+                frame.release();
+            }
+            frames = null;
+        }
+        if (handshakeFuture != null && active) {
+            // 握手完成前连接被关闭，没有连接成功的情况由连接器通知
+            handshakeFuture.completeExceptionally(
+                    new IOException("P6eWebSocketClient connection closed before handshake complete."));
+        }
         callback.onClose(client);
+        if (reconnector != null) {
+            reconnector.onClose(ctx.channel());
+        }
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-        LOGGER.debug("( " + getClient(ctx).getId() + " ) [ exceptionCaught ] ==> " + ctx);
-        if (client.isOpen()) {
+        debug(ctx, "exceptionCaught");
+        if (getClient(ctx).isOpen()) {
             callback.onError(client, cause);
         }
+        if (handshakeFuture != null) {
+            handshakeFuture.completeExceptionally(cause);
+        }
         ctx.close(); // 关闭当前连接
     }
 }
@@ -0,0 +1,218 @@
+package club.p6e.websocket.client;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 HdrHistogram 的指标
+ * 计数器按照帧的类型统计，直方图可以关闭以节省每个连接的内存，
+ * 设置了上级指标时记录的数据同时汇总到上级
+ * @author lidashuang
+ * @version 1.0
+ */
+public class HdrMetrics implements P6eWebSocketMetrics {
+
+    /** 直方图的有效位数 */
+    private static final int SIGNIFICANT_DIGITS = 2;
+    /** 帧的类型数量 */
+    private static final int FRAME_TYPES = FrameType.values().length;
+
+    /** 上级指标，可以为 null */
+    private final P6eWebSocketMetrics parent;
+    /** 接收的帧数量 */
+    private final LongAdder[] framesIn = counters();
+    /** 接收的字节数 */
+    private final LongAdder[] bytesIn = counters();
+    /** 发送的帧数量 */
+    private final LongAdder[] framesOut = counters();
+    /** 发送的字节数 */
+    private final LongAdder[] bytesOut = counters();
+    /** 握手耗时的直方图（纳秒） */
+    private final Histogram handshake;
+    /** 回调耗时的直方图（纳秒） */
+    private final Histogram callback;
+    /** 排队耗时的直方图（纳秒） */
+    private final Histogram queueWait;
+    /** 写缓冲区字节数的直方图 */
+    private final Histogram writeBufferFill;
+
+    /**
+     * 构造方法初始化
+     * @param parent 上级指标，可以为 null
+     * @param histogram 是否记录直方图
+     */
+    public HdrMetrics(P6eWebSocketMetrics parent, boolean histogram) {
+        this.parent = parent;
+        this.handshake = histogram ? new ConcurrentHistogram(SIGNIFICANT_DIGITS) : null;
+        this.callback = histogram ? new ConcurrentHistogram(SIGNIFICANT_DIGITS) : null;
+        this.queueWait = histogram ? new ConcurrentHistogram(SIGNIFICANT_DIGITS) : null;
+        this.writeBufferFill = histogram ? new ConcurrentHistogram(SIGNIFICANT_DIGITS) : null;
+    }
+
+    /**
+     * 创建每种帧类型的计数器
+     * @return 计数器
+     */
+    private static LongAdder[] counters() {
+        final LongAdder[] counters = new LongAdder[FRAME_TYPES];
+        for (int i = 0; i < FRAME_TYPES; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * 记录直方图
+     * @param histogram 直方图
+     * @param value 值
+     */
+    private static void record(Histogram histogram, long value) {
+        if (histogram != null && value >= 0) {
+            histogram.recordValue(value);
+        }
+    }
+
+    @Override
+    public void onFrameIn(FrameType type, int bytes) {
+        framesIn[type.ordinal()].increment();
+        bytesIn[type.ordinal()].add(bytes);
+        if (parent != null) {
+            parent.onFrameIn(type, bytes);
+        }
+    }
+
+    @Override
+    public void onFrameOut(FrameType type, int bytes) {
+        framesOut[type.ordinal()].increment();
+        bytesOut[type.ordinal()].add(bytes);
+        if (parent != null) {
+            parent.onFrameOut(type, bytes);
+        }
+    }
+
+    @Override
+    public void onHandshake(long nanos) {
+        record(handshake, nanos);
+        if (parent != null) {
+            parent.onHandshake(nanos);
+        }
+    }
+
+    @Override
+    public void onCallback(long nanos) {
+        record(callback, nanos);
+        if (parent != null) {
+            parent.onCallback(nanos);
+        }
+    }
+
+    @Override
+    public void onQueueWait(long nanos) {
+        record(queueWait, nanos);
+        if (parent != null) {
+            parent.onQueueWait(nanos);
+        }
+    }
+
+    @Override
+    public void onWriteBufferFill(long bytes) {
+        record(writeBufferFill, bytes);
+        if (parent != null) {
+            parent.onWriteBufferFill(bytes);
+        }
+    }
+
+    /**
+     * 获取指定类型接收的帧数
+     * @param type 帧的类型
+     * @return 帧数
+     */
+    public long getFramesIn(FrameType type) {
+        return framesIn[type.ordinal()].sum();
+    }
+
+    /**
+     * 获取指定类型接收的字节数
+     * @param type 帧的类型
+     * @return 字节数
+     */
+    public long getBytesIn(FrameType type) {
+        return bytesIn[type.ordinal()].sum();
+    }
+
+    /**
+     * 获取指定类型发送的帧数
+     * @param type 帧的类型
+     * @return 帧数
+     */
+    public long getFramesOut(FrameType type) {
+        return framesOut[type.ordinal()].sum();
+    }
+
+    /**
+     * 获取指定类型发送的字节数
+     * @param type 帧的类型
+     * @return 字节数
+     */
+    public long getBytesOut(FrameType type) {
+        return bytesOut[type.ordinal()].sum();
+    }
+
+    /**
+     * 获取所有类型接收的字节数
+     * @return 字节数
+     */
+    public long getTotalBytesIn() {
+        long total = 0;
+        for (final LongAdder counter : bytesIn) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 获取所有类型发送的字节数
+     * @return 字节数
+     */
+    public long getTotalBytesOut() {
+        long total = 0;
+        for (final LongAdder counter : bytesOut) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 获取握手耗时的直方图
+     * @return 直方图的副本（纳秒），没有记录直方图时为 null
+     */
+    public Histogram getHandshakeHistogram() {
+        return handshake == null ? null : handshake.copy();
+    }
+
+    /**
+     * 获取回调耗时的直方图
+     * @return 直方图的副本（纳秒），没有记录直方图时为 null
+     */
+    public Histogram getCallbackHistogram() {
+        return callback == null ? null : callback.copy();
+    }
+
+    /**
+     * 获取排队耗时的直方图
+     * @return 直方图的副本（纳秒），没有记录直方图时为 null
+     */
+    public Histogram getQueueWaitHistogram() {
+        return queueWait == null ? null : queueWait.copy();
+    }
+
+    /**
+     * 获取写缓冲区字节数的直方图
+     * @return 直方图的副本，没有记录直方图时为 null
+     */
+    public Histogram getWriteBufferFillHistogram() {
+        return writeBufferFill == null ? null : writeBufferFill.copy();
+    }
+}
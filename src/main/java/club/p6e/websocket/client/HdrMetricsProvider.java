@@ -0,0 +1,41 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.Channel;
+
+/**
+ * 默认的指标收集实现
+ * 连接器记录计数器和直方图，连接默认只记录计数器并汇总到连接器，
+ * 大量连接时每个连接的直方图会占用较多的内存
+ * @author lidashuang
+ * @version 1.0
+ */
+public class HdrMetricsProvider implements P6eWebSocketMetricsProvider {
+
+    /** 每个连接是否记录直方图 */
+    private final boolean connectionHistogram;
+
+    /**
+     * 构造方法初始化
+     */
+    public HdrMetricsProvider() {
+        this(false);
+    }
+
+    /**
+     * 构造方法初始化
+     * @param connectionHistogram 每个连接是否记录直方图
+     */
+    public HdrMetricsProvider(boolean connectionHistogram) {
+        this.connectionHistogram = connectionHistogram;
+    }
+
+    @Override
+    public P6eWebSocketMetrics connector(Connector connector) {
+        return new HdrMetrics(null, true);
+    }
+
+    @Override
+    public P6eWebSocketMetrics connection(P6eWebSocketMetrics connectorMetrics, Channel channel) {
+        return new HdrMetrics(connectorMetrics, connectionHistogram);
+    }
+}
@@ -0,0 +1,150 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 心跳处理器
+ * 放在 IdleStateHandler 之后，握手完成后按照间隔发送带有时间戳的 Ping，
+ * 通过对应的 Pong 计算往返延迟；写空闲时发送 Ping 保持连接，读空闲时判定对端失效并关闭连接
+ * 处理器只在 EventLoop 线程中执行
+ * @author lidashuang
+ * @version 1.0
+ */
+public class Heartbeat extends ChannelDuplexHandler {
+
+    /** channel 上绑定的心跳处理器 */
+    public static final AttributeKey<Heartbeat> KEY = AttributeKey.valueOf("P6E_WS_HEARTBEAT");
+
+    /** 心跳 Ping 内容的标记，用于区分用户发送的 Ping */
+    private static final short MAGIC = 0x5036;
+    /** 心跳 Ping 内容的长度，标记 + 纳秒时间戳 */
+    private static final int PAYLOAD_LENGTH = 10;
+
+    /** 注入日志对象 */
+    private static final Logger LOGGER = LoggerFactory.getLogger(Heartbeat.class);
+
+    /** 定时发送 Ping 的间隔（毫秒），小于等于 0 时不定时发送 */
+    private final long pingInterval;
+    /** 往返延迟的直方图（纳秒） */
+    private final Histogram roundTripHistogram = new ConcurrentHistogram(3);
+    /** 最近一次的往返延迟（纳秒） */
+    private volatile long roundTripTime = -1;
+    /** 是否已经握手完成 */
+    private boolean handshaken = false;
+    /** 定时发送 Ping 的任务 */
+    private ScheduledFuture<?> pingFuture;
+
+    /**
+     * 构造方法初始化
+     * @param pingInterval 定时发送 Ping 的间隔（毫秒），小于等于 0 时不定时发送
+     */
+    public Heartbeat(long pingInterval) {
+        this.pingInterval = pingInterval;
+    }
+
+    /**
+     * 获取最近一次的往返延迟
+     * @return 往返延迟（纳秒），没有数据时为 -1
+     */
+    public long getRoundTripTime() {
+        return roundTripTime;
+    }
+
+    /**
+     * 获取往返延迟的直方图
+     * @return 往返延迟的直方图的副本（纳秒）
+     */
+    public Histogram getRoundTripHistogram() {
+        return roundTripHistogram.copy();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpResponse && !handshaken) {
+            // 后续处理器同步完成握手，握手失败时连接会被关闭
+            ctx.fireChannelRead(msg);
+            handshaken = true;
+            if (pingInterval > 0 && ctx.channel().isActive()) {
+                pingFuture = ctx.executor().scheduleAtFixedRate(
+                        () -> ping(ctx), pingInterval, pingInterval, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        if (msg instanceof PongWebSocketFrame) {
+            final ByteBuf content = ((PongWebSocketFrame) msg).content();
+            if (content.readableBytes() == PAYLOAD_LENGTH && content.getShort(content.readerIndex()) == MAGIC) {
+                final long rtt = System.nanoTime() - content.getLong(content.readerIndex() + 2);
+                if (rtt >= 0) {
+                    roundTripTime = rtt;
+                    roundTripHistogram.recordValue(rtt);
+                }
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            final IdleState state = ((IdleStateEvent) evt).state();
+            if (state == IdleState.READER_IDLE) {
+                LOGGER.info("[ P6eWebSocketClient ] ==> heartbeat read idle timeout, close " + ctx.channel() + ".");
+                ctx.fireExceptionCaught(ReadTimeoutException.INSTANCE);
+                ctx.close();
+            } else if (state == IdleState.WRITER_IDLE) {
+                ping(ctx);
+            }
+        }
+        ctx.fireUserEventTriggered(evt);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancel();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        cancel();
+    }
+
+    /**
+     * 发送带有时间戳的 Ping
+     * @param ctx ChannelHandlerContext 对象
+     */
+    private void ping(ChannelHandlerContext ctx) {
+        if (handshaken && ctx.channel().isActive()) {
+            final ByteBuf content = ctx.alloc().buffer(PAYLOAD_LENGTH);
+            content.writeShort(MAGIC);
+            content.writeLong(System.nanoTime());
+            ctx.writeAndFlush(new PingWebSocketFrame(content), ctx.voidPromise());
+        }
+    }
+
+    /**
+     * 取消定时发送 Ping 的任务
+     */
+    private void cancel() {
+        if (pingFuture != null) {
+            pingFuture.cancel(false);
+            pingFuture = null;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 提取 JSON-RPC 响应中的数字 ID
+ * 直接扫描字节，不创建字符串，只识别最外层对象的 "id" 字段，忽略 params / result 中嵌套的 id，
+ * 没有 id、id 为 null 或者不是整数时返回 NO_ID；
+ * 最外层有 "method" 字段的是服务端发起的请求或者通知，同样返回 NO_ID，交给回调函数处理
+ * @author lidashuang
+ * @version 1.0
+ */
+public class JsonRpcIdExtractor implements P6eWebSocketIdExtractor {
+
+    /** id 字段名 */
+    private static final byte[] ID = {'i', 'd'};
+    /** method 字段名 */
+    private static final byte[] METHOD = {'m', 'e', 't', 'h', 'o', 'd'};
+
+    @Override
+    public long extract(ByteBuf message) {
+        final int end = message.writerIndex();
+        long id = NO_ID;
+        int depth = 0;
+        int i = message.readerIndex();
+        while (i < end) {
+            final byte b = message.getByte(i);
+            if (b == '"') {
+                final int start = i + 1;
+                i = skipString(message, start, end);
+                if (depth == 1) {
+                    // 最外层的字段名后面是冒号
+                    final int j = skipWhitespace(message, i + 1, end);
+                    if (j < end && message.getByte(j) == ':') {
+                        if (equals(message, start, i, ID)) {
+                            id = number(message, skipWhitespace(message, j + 1, end), end);
+                        } else if (equals(message, start, i, METHOD)) {
+                            return NO_ID;
+                        }
+                    }
+                }
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+            i++;
+        }
+        return id;
+    }
+
+    /**
+     * 比较字段名
+     * @param message 消息内容
+     * @param start 字段名开始的位置
+     * @param end 字段名结束的位置
+     * @param name 字段名
+     * @return 是否相同
+     */
+    private static boolean equals(ByteBuf message, int start, int end, byte[] name) {
+        if (end - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (message.getByte(start + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 跳过字符串
+     * @param message 消息内容
+     * @param index 字符串内容开始的位置
+     * @param end 结束的位置
+     * @return 结束引号的位置
+     */
+    private static int skipString(ByteBuf message, int index, int end) {
+        while (index < end) {
+            final byte b = message.getByte(index);
+            if (b == '\\') {
+                index += 2;
+            } else if (b == '"') {
+                return index;
+            } else {
+                index++;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * 跳过空白字符
+     * @param message 消息内容
+     * @param index 开始的位置
+     * @param end 结束的位置
+     * @return 第一个不是空白字符的位置
+     */
+    private static int skipWhitespace(ByteBuf message, int index, int end) {
+        while (index < end) {
+            final byte b = message.getByte(index);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * 解析整数
+     * @param message 消息内容
+     * @param index 开始的位置
+     * @param end 结束的位置
+     * @return 整数，不是整数时返回 NO_ID
+     */
+    private static long number(ByteBuf message, int index, int end) {
+        boolean negative = false;
+        if (index < end && message.getByte(index) == '-') {
+            negative = true;
+            index++;
+        }
+        long result = 0;
+        int digits = 0;
+        while (index < end) {
+            final byte b = message.getByte(index);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            result = result * 10 + (b - '0');
+            digits++;
+            index++;
+        }
+        if (digits == 0 || digits > 18 || (index < end && (message.getByte(index) == '.'
+                || message.getByte(index) == 'e' || message.getByte(index) == 'E'))) {
+            return NO_ID;
+        }
+        return negative ? -result : result;
+    }
+}
@@ -0,0 +1,197 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个连接的任务邮箱
+ * 任务按照提交的顺序执行，同一时刻最多只占用线程池中的一个线程
+ * 绑定 channel 后，积压的任务达到高水位时暂停读取，回落到低水位时恢复读取，
+ * 让慢消费的压力通过 TCP 传递到服务端
+ * @author lidashuang
+ * @version 1.0
+ */
+public class Mailbox implements Runnable {
+
+    /** 每次占用线程最多执行的任务数量，避免单个连接长时间占用线程 */
+    private static final int BATCH_SIZE = 64;
+
+    /** 注入日志对象 */
+    private static final Logger LOGGER = LoggerFactory.getLogger(Mailbox.class);
+
+    /** channel 上绑定的邮箱 */
+    public static final AttributeKey<Mailbox> KEY = AttributeKey.valueOf("P6E_WS_MAILBOX");
+
+    /** 执行任务的线程池 */
+    private final Executor executor;
+    /** 绑定的 channel，为 null 时不进行流量控制 */
+    private final Channel channel;
+    /** 高水位 */
+    private final int highWaterMark;
+    /** 低水位 */
+    private final int lowWaterMark;
+    /** 等待执行的任务 */
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    /** 等待执行的任务数量 */
+    private final AtomicInteger size = new AtomicInteger(0);
+    /** 是否已经提交到线程池 */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    /** 是否已经提交了恢复读取的任务 */
+    private final AtomicBoolean resumeScheduled = new AtomicBoolean(false);
+    /** 暂停读取的次数 */
+    private final AtomicLong pauseCount = new AtomicLong(0);
+    /** 是否暂停读取 */
+    private volatile boolean paused = false;
+
+    /**
+     * 构造方法初始化
+     * @param executor 执行任务的线程池
+     */
+    public Mailbox(Executor executor) {
+        this(executor, null, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 构造方法初始化
+     * @param executor 执行任务的线程池
+     * @param channel 绑定的 channel
+     * @param highWaterMark 高水位，积压的任务达到该数量暂停读取
+     * @param lowWaterMark 低水位，积压的任务回落到该数量恢复读取
+     */
+    public Mailbox(Executor executor, Channel channel, int highWaterMark, int lowWaterMark) {
+        if (lowWaterMark > highWaterMark) {
+            throw new IllegalArgumentException("low water mark must not be greater than high water mark.");
+        }
+        this.executor = executor;
+        this.channel = channel;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
+        if (channel != null) {
+            channel.attr(KEY).set(this);
+        }
+    }
+
+    /**
+     * 提交任务
+     * @param task 任务对象
+     */
+    public void execute(Runnable task) {
+        queue.offer(task);
+        if (size.incrementAndGet() >= highWaterMark && channel != null && !paused) {
+            if (channel.eventLoop().inEventLoop()) {
+                pause();
+            } else {
+                channel.eventLoop().execute(this::pause);
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * 暂停读取，只在 EventLoop 线程中执行
+     */
+    private void pause() {
+        if (!paused && size.get() >= highWaterMark) {
+            paused = true;
+            pauseCount.incrementAndGet();
+            channel.config().setAutoRead(false);
+            LOGGER.debug("[ P6eWebSocketClient ] ==> mailbox reached high water mark, pause reading.");
+            // 标记暂停前任务可能已经被消费完，需要再次检查
+            resume();
+        }
+    }
+
+    /**
+     * 恢复读取，只在 EventLoop 线程中执行
+     */
+    private void resume() {
+        resumeScheduled.set(false);
+        if (paused && size.get() <= lowWaterMark) {
+            paused = false;
+            channel.config().setAutoRead(true);
+            LOGGER.debug("[ P6eWebSocketClient ] ==> mailbox fell to low water mark, resume reading.");
+        }
+    }
+
+    /**
+     * 任务执行完成后检查是否需要恢复读取
+     */
+    private void release() {
+        if (size.decrementAndGet() <= lowWaterMark && paused
+                && resumeScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(this::resume);
+        }
+    }
+
+    /**
+     * 获取等待执行的任务数量
+     * @return 任务数量
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 获取暂停读取的次数
+     * @return 暂停读取的次数
+     */
+    public long getPauseCount() {
+        return pauseCount.get();
+    }
+
+    /**
+     * 是否暂停读取
+     * @return 是否暂停读取
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * 如果没有提交到线程池就提交到线程池
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final Runnable task = queue.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    LOGGER.error("[ P6eWebSocketClient ] ==> mailbox task execution exception.", e);
+                } finally {
+                    release();
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // 还有剩余的任务或者在释放标记前提交了新的任务
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
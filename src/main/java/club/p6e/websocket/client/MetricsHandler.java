@@ -0,0 +1,73 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * 收集帧、握手和写缓冲区指标的处理器
+ * 放在 Handler 之前，统计的是解压和合并后交给回调的帧
+ * 处理器只在 EventLoop 线程中执行
+ * @author lidashuang
+ * @version 1.0
+ */
+public class MetricsHandler extends ChannelDuplexHandler {
+
+    /** 连接的指标 */
+    private final P6eWebSocketMetrics metrics;
+    /** 发送握手请求的时间（纳秒） */
+    private long handshakeStart = 0;
+
+    /**
+     * 构造方法初始化
+     * @param metrics 连接的指标
+     */
+    public MetricsHandler(P6eWebSocketMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        // Handler 在 channelActive 中发送握手请求
+        handshakeStart = System.nanoTime();
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof WebSocketFrame) {
+            final WebSocketFrame frame = (WebSocketFrame) msg;
+            metrics.onFrameIn(P6eWebSocketMetrics.FrameType.of(frame), frame.content().readableBytes());
+        } else if (msg instanceof HttpResponse && handshakeStart != 0) {
+            // 后续处理器同步完成握手，握手失败时连接会被关闭
+            ctx.fireChannelRead(msg);
+            if (ctx.channel().isActive()) {
+                metrics.onHandshake(System.nanoTime() - handshakeStart);
+            }
+            handshakeStart = 0;
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof WebSocketFrame) {
+            final WebSocketFrame frame = (WebSocketFrame) msg;
+            metrics.onFrameOut(P6eWebSocketMetrics.FrameType.of(frame), frame.content().readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        final ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+        if (buffer != null) {
+            metrics.onWriteBufferFill(buffer.totalPendingWriteBytes());
+        }
+        ctx.flush();
+    }
+}
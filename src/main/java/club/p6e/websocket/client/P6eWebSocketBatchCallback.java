@@ -0,0 +1,42 @@
+package club.p6e.websocket.client;
+
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.List;
+
+/**
+ * 批量接收消息的回调函数
+ * 一次读取中解码出的文本帧、二进制帧和分片帧在 channelReadComplete 时通过 onMessageBatch 一次交给回调，
+ * 适合写入 Kafka 或者数据库等可以批量处理的场景，Ping / Pong 帧仍然通过单独的方法回调
+ * 帧的 release 规则和消息的 ByteBuf 一致，列表在回调后不会被复用
+ * @author lidashuang
+ * @version 1.0
+ */
+public interface P6eWebSocketBatchCallback extends P6eWebSocketCallback {
+
+    /**
+     * 触发一批消息的事件
+     * @param client WebSocketClient 对象
+     * @param frames 一次读取中按照到达顺序收到的帧
+     */
+    public void onMessageBatch(P6eWebSocketClient client, List<WebSocketFrame> frames);
+
+    /**
+     * 是否批量接收消息
+     * 包装其它回调的实现根据被包装的回调返回
+     * @return 是否批量接收消息
+     */
+    public default boolean isBatch() {
+        return true;
+    }
+
+    /**
+     * 判断回调是否批量接收消息
+     * @param callback 回调函数
+     * @return 是否批量接收消息
+     */
+    public static boolean isBatch(P6eWebSocketCallback callback) {
+        return callback instanceof P6eWebSocketBatchCallback && ((P6eWebSocketBatchCallback) callback).isBatch();
+    }
+
+}
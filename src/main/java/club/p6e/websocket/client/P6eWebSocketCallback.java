@@ -4,6 +4,8 @@ import io.netty.buffer.ByteBuf;
 
 /**
  * 回调函数
+ * 消息的 ByteBuf 默认只在回调执行期间有效，回调结束后由连接器 release，需要在回调外使用时先 retain；
+ * 配置 Config.setMessageOwnership(true) 后 ByteBuf 的所有权交给回调，使用完成后需要手动 release
  * @author lidashuang
  * @version 1.0
  */
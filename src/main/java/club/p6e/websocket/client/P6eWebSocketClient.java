@@ -1,11 +1,15 @@
 package club.p6e.websocket.client;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.HdrHistogram.Histogram;
 
 /**
  * 客户端对象
@@ -17,6 +21,9 @@ public class P6eWebSocketClient {
     /** 全局 channel 对象 */
     private final Channel channel;
 
+    /** 缓存的 ID，String 不可变，多线程重复计算也没有问题 */
+    private String id;
+
     /**
      * 构造方法初始化
      * @param channel channel 对象
@@ -30,7 +37,12 @@ public class P6eWebSocketClient {
      * @return ID
      */
     public String getId() {
-        return channel.id().toString();
+        String id = this.id;
+        if (id == null) {
+            id = channel.id().toString();
+            this.id = id;
+        }
+        return id;
     }
 
     /**
@@ -49,10 +61,67 @@ public class P6eWebSocketClient {
         return channel;
     }
 
+    /**
+     * 获取异步回调积压的消息数量
+     * @return 积压的消息数量，同步回调时为 0
+     */
+    public int getQueueSize() {
+        final Mailbox mailbox = channel.attr(Mailbox.KEY).get();
+        return mailbox == null ? 0 : mailbox.size();
+    }
+
+    /**
+     * 获取异步回调积压导致暂停读取的次数
+     * @return 暂停读取的次数，同步回调时为 0
+     */
+    public long getQueuePauseCount() {
+        final Mailbox mailbox = channel.attr(Mailbox.KEY).get();
+        return mailbox == null ? 0 : mailbox.getPauseCount();
+    }
+
+    /**
+     * 获取压缩的统计数据
+     * @return 压缩的统计数据，没有启用压缩时为 null
+     */
+    public CompressionStats getCompressionStats() {
+        return channel.attr(CompressionStats.KEY).get();
+    }
+
+    /**
+     * 获取最近一次心跳的往返延迟
+     * @return 往返延迟（纳秒），没有启用心跳或者没有数据时为 -1
+     */
+    public long getRoundTripTime() {
+        final Heartbeat heartbeat = channel.attr(Heartbeat.KEY).get();
+        return heartbeat == null ? -1 : heartbeat.getRoundTripTime();
+    }
+
+    /**
+     * 获取心跳往返延迟的直方图
+     * @return 往返延迟的直方图（纳秒），没有启用心跳时为 null
+     */
+    public Histogram getRoundTripHistogram() {
+        final Heartbeat heartbeat = channel.attr(Heartbeat.KEY).get();
+        return heartbeat == null ? null : heartbeat.getRoundTripHistogram();
+    }
+
+    /**
+     * 获取连接的指标
+     * @return 连接的指标，连接器没有设置指标收集的扩展点时为 null
+     */
+    public P6eWebSocketMetrics getMetrics() {
+        return channel.attr(P6eWebSocketMetrics.KEY).get();
+    }
+
     /**
      * 关闭 channel
      */
     public void close() {
+        // 主动关闭的连接不再重连
+        final Reconnector reconnector = channel.attr(Reconnector.KEY).get();
+        if (reconnector != null) {
+            reconnector.stop();
+        }
         channel.close();
     }
 
@@ -69,9 +138,97 @@ public class P6eWebSocketClient {
      * @param content 文本内容
      */
     public void sendMessageText(String content) {
+        sendMessageText((CharSequence) content);
+    }
+
+    /**
+     * 发送文本消息
+     * 文本直接编码到 channel 分配器的池化直接内存中，不产生中间的 byte[]
+     * @param content 文本内容
+     */
+    public void sendMessageText(CharSequence content) {
+        channel.writeAndFlush(new TextWebSocketFrame(encode(channel.alloc(), content)));
+    }
+
+    /**
+     * 发送已经编码为 UTF-8 的文本消息
+     * ByteBuf 资源在发送完成后由 Netty 回收
+     * @param content UTF-8 编码的文本内容
+     */
+    public void sendMessageText(ByteBuf content) {
         channel.writeAndFlush(new TextWebSocketFrame(content));
     }
 
+    /**
+     * 发送共享的消息帧
+     * 发送的是帧的 retainedDuplicate，调用方仍然持有原始帧，
+     * 同一个预先编码的帧可以发送给多个客户端，全部发送后由调用方 release
+     * @param frame 预先编码的消息帧
+     */
+    public void sendMessageShared(WebSocketFrame frame) {
+        channel.writeAndFlush(frame.retainedDuplicate());
+    }
+
+    /**
+     * 写入字节码消息，不立即 flush
+     * @param byteBuf ByteBuf 对象
+     */
+    public void writeMessageBinary(ByteBuf byteBuf) {
+        channel.write(new BinaryWebSocketFrame(byteBuf), channel.voidPromise());
+    }
+
+    /**
+     * 写入文本消息，不立即 flush
+     * @param content 文本内容
+     */
+    public void writeMessageText(CharSequence content) {
+        channel.write(new TextWebSocketFrame(encode(channel.alloc(), content)), channel.voidPromise());
+    }
+
+    /**
+     * 写入已经编码为 UTF-8 的文本消息，不立即 flush
+     * @param content UTF-8 编码的文本内容
+     */
+    public void writeMessageText(ByteBuf content) {
+        channel.write(new TextWebSocketFrame(content), channel.voidPromise());
+    }
+
+    /**
+     * 写入共享的消息帧，不立即 flush
+     * @param frame 预先编码的消息帧
+     */
+    public void writeMessageShared(WebSocketFrame frame) {
+        channel.write(frame.retainedDuplicate(), channel.voidPromise());
+    }
+
+    /**
+     * 将写入的消息一次性发送
+     */
+    public void flush() {
+        channel.flush();
+    }
+
+    /**
+     * 预先编码文本消息帧，用于通过 sendMessageShared 发送给多个客户端
+     * @param content 文本内容
+     * @return 文本消息帧，使用完成后需要 release
+     */
+    public static TextWebSocketFrame encodeMessageText(CharSequence content) {
+        return new TextWebSocketFrame(encode(ByteBufAllocator.DEFAULT, content));
+    }
+
+    /**
+     * 将文本编码为 UTF-8 写入池化的直接内存
+     * @param allocator 内存分配器
+     * @param content 文本内容
+     * @return ByteBuf 对象
+     */
+    private static ByteBuf encode(ByteBufAllocator allocator, CharSequence content) {
+        final ByteBuf byteBuf = allocator.directBuffer(ByteBufUtil.utf8MaxBytes(content));
+        ByteBufUtil.writeUtf8(byteBuf, content);
+        return byteBuf;
+    }
+
     /**
      * 发送 Pong 消息
      */
@@ -4,7 +4,7 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
 
-import java.util.Iterator;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 
 /**
@@ -37,13 +37,31 @@ public final class P6eWebSocketClientApplication {
         ThreadPool.shutdown();
     }
 
+    /**
+     * 配置共享 EventLoopGroup 的线程
+     * @param threads 线程数量，0 表示使用 Netty 的默认数量
+     * @param threadFactory 线程工厂，需要绑定 CPU 时传入支持 CPU 亲和性的线程工厂
+     */
+    public static void configureEventLoopGroup(int threads, ThreadFactory threadFactory) {
+        SharedEventLoopGroup.configure(threads, threadFactory);
+    }
+
     /**
      * 创建连接器
+     * 使用共享的 EventLoopGroup
      */
     public static Connector connector() {
         return new Connector();
     }
 
+    /**
+     * 创建连接器
+     * @param transport 网络传输的实现方式
+     */
+    public static Connector connector(Transport transport) {
+        return new Connector(transport);
+    }
+
     /**
      * 创建连接器
      * @param bootstrap Netty 的 Bootstrap
@@ -87,11 +105,9 @@ public final class P6eWebSocketClientApplication {
         // 关闭任务线程池
         shutdownThreadPool();
         // 关闭所有连接器
-        final Iterator<Connector> iterator = Connector.getConnectors().iterator();
-        while (iterator.hasNext()) {
-            final Connector connector = iterator.next();
-            connector.shutdown(false);
-            iterator.remove();
+        // CopyOnWriteArrayList 的迭代器不支持 remove，遍历的是快照，可以直接从缓存中删除
+        for (final Connector connector : Connector.getConnectors()) {
+            connector.shutdown(true);
         }
     }
 
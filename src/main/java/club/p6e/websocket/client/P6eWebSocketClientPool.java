@@ -0,0 +1,381 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 客户端连接池
+ * 每个地址维持固定数量的连接，发送消息时按照策略选择健康的连接，断开的连接自动补充
+ * @author lidashuang
+ * @version 1.0
+ */
+public class P6eWebSocketClientPool {
+
+    /**
+     * 选择连接的策略
+     * @author lidashuang
+     * @version 1.0
+     */
+    public enum Strategy {
+        /**
+         * 轮询
+         */
+        ROUND_ROBIN,
+        /**
+         * 等待写出的数据最少
+         */
+        LEAST_PENDING_WRITES,
+        /**
+         * 随机选择两个，使用等待写出的数据较少的一个
+         */
+        POWER_OF_TWO_CHOICES
+    }
+
+    /** 注入日志对象 */
+    private static final Logger LOGGER = LoggerFactory.getLogger(P6eWebSocketClientPool.class);
+
+    /** 连接器 */
+    private final Connector connector;
+    /** 连接的地址 */
+    private final List<Config> endpoints;
+    /** 每个地址的连接数量 */
+    private final int sizePerEndpoint;
+    /** 选择连接的策略 */
+    private final Strategy strategy;
+    /** 回调函数 */
+    private final P6eWebSocketCallback callback;
+    /** 是否异步回调 */
+    private final boolean isAsync;
+    /** 所有的连接，下标 / 每个地址的连接数量 = 地址的下标 */
+    private final AtomicReferenceArray<P6eWebSocketClient> members;
+    /** 轮询的计数器 */
+    private final AtomicInteger counter = new AtomicInteger(0);
+    /** 补充连接的间隔（毫秒） */
+    private volatile long replaceDelay = 1000;
+    /** 是否已经关闭 */
+    private volatile boolean closed = false;
+
+    /**
+     * 构造方法初始化
+     * @param connector 连接器
+     * @param endpoints 连接的地址
+     * @param sizePerEndpoint 每个地址的连接数量
+     * @param strategy 选择连接的策略
+     * @param callback 回调函数
+     * @param isAsync 是否异步回调
+     */
+    public P6eWebSocketClientPool(Connector connector, List<Config> endpoints, int sizePerEndpoint,
+                                  Strategy strategy, P6eWebSocketCallback callback, boolean isAsync) {
+        if (endpoints.isEmpty() || sizePerEndpoint <= 0) {
+            throw new IllegalArgumentException("pool must have at least one endpoint and one connection per endpoint.");
+        }
+        this.connector = connector;
+        this.endpoints = new ArrayList<>(endpoints);
+        this.sizePerEndpoint = sizePerEndpoint;
+        this.strategy = strategy;
+        this.callback = callback;
+        this.isAsync = isAsync;
+        this.members = new AtomicReferenceArray<>(endpoints.size() * sizePerEndpoint);
+    }
+
+    /**
+     * 设置补充连接的间隔
+     * @param replaceDelay 间隔（毫秒）
+     */
+    public void setReplaceDelay(long replaceDelay) {
+        this.replaceDelay = replaceDelay;
+    }
+
+    /**
+     * 建立所有的连接
+     * @return 所有连接第一次尝试完成的通知对象，部分连接失败时会在后台继续补充
+     */
+    public CompletableFuture<Void> start() {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[members.length()];
+        for (int i = 0; i < members.length(); i++) {
+            futures[i] = connect(i).handle((client, throwable) -> null);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 连接指定位置的成员，失败后延迟重试
+     * 第一次连接失败时断线重连不会生效，由连接池负责重试；握手成功后断开的连接由断线重连补充，
+     * 断线重连放弃后再由连接池补充
+     * @param index 成员的下标
+     * @return 握手完成的通知对象
+     */
+    private CompletableFuture<P6eWebSocketClient> connect(int index) {
+        final Config config = endpoints.get(index / sizePerEndpoint);
+        final CompletableFuture<P6eWebSocketClient> future = connector.connectAsync(config, new Member(index), isAsync);
+        future.whenComplete((client, throwable) -> {
+            if (throwable != null) {
+                LOGGER.info("[ P6eWebSocketClient ] ==> pool member ( host: " + config.getHost()
+                        + " , port: " + config.getPort() + " ) connect failed, " + throwable.getMessage());
+                replace(index);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 延迟补充指定位置的成员
+     * @param index 成员的下标
+     */
+    private void replace(int index) {
+        if (!closed && !connector.isShutdown()) {
+            GlobalEventExecutor.INSTANCE.schedule(() -> {
+                if (!closed && members.get(index) == null) {
+                    connect(index);
+                }
+            }, replaceDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 按照策略选择一个健康的连接
+     * @return 连接，没有健康的连接时为 null
+     */
+    public P6eWebSocketClient next() {
+        final int length = members.length();
+        switch (strategy) {
+            case ROUND_ROBIN:
+                final int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+                for (int i = 0; i < length; i++) {
+                    final P6eWebSocketClient client = members.get((start + i) % length);
+                    if (isHealthy(client)) {
+                        return client;
+                    }
+                }
+                return null;
+            case POWER_OF_TWO_CHOICES:
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                final int firstIndex = random.nextInt(length);
+                final P6eWebSocketClient first = members.get(firstIndex);
+                if (length == 1) {
+                    return isHealthy(first) ? first : null;
+                }
+                // 第二个从剩余的 length - 1 个中选择，不会和第一个相同
+                final int secondIndex = (firstIndex + 1 + random.nextInt(length - 1)) % length;
+                final P6eWebSocketClient second = members.get(secondIndex);
+                if (isHealthy(first) && isHealthy(second)) {
+                    return capacity(first) >= capacity(second) ? first : second;
+                } else if (isHealthy(first)) {
+                    return first;
+                } else if (isHealthy(second)) {
+                    return second;
+                }
+                // 两个都不健康时退化为查找等待写出的数据最少的连接
+                return leastPendingWrites();
+            case LEAST_PENDING_WRITES:
+            default:
+                return leastPendingWrites();
+        }
+    }
+
+    /**
+     * 查找等待写出的数据最少的健康连接
+     * @return 连接，没有健康的连接时为 null
+     */
+    private P6eWebSocketClient leastPendingWrites() {
+        P6eWebSocketClient result = null;
+        long best = -1;
+        // 从轮换的位置开始查找，等待写出的数据相同时分散到不同的连接
+        final int length = members.length();
+        final int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < length; i++) {
+            final P6eWebSocketClient client = members.get((start + i) % length);
+            if (isHealthy(client)) {
+                final long capacity = capacity(client);
+                if (capacity > best) {
+                    best = capacity;
+                    result = client;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 连接是否健康，连接处于活跃状态并且可写
+     * @param client 连接
+     * @return 是否健康
+     */
+    private static boolean isHealthy(P6eWebSocketClient client) {
+        if (client == null) {
+            return false;
+        }
+        final Channel channel = client.getChannel();
+        return channel.isActive() && channel.isWritable();
+    }
+
+    /**
+     * 连接在变为不可写之前还能写入的字节数，越大说明等待写出的数据越少
+     * @param client 连接
+     * @return 字节数
+     */
+    private static long capacity(P6eWebSocketClient client) {
+        return client.getChannel().bytesBeforeUnwritable();
+    }
+
+    /**
+     * 通过按照策略选择的健康连接发送文本消息
+     * @param content 文本内容
+     * @return 是否有可用的连接
+     */
+    public boolean sendMessageText(CharSequence content) {
+        final P6eWebSocketClient client = next();
+        if (client == null) {
+            return false;
+        }
+        client.sendMessageText(content);
+        return true;
+    }
+
+    /**
+     * 通过按照策略选择的健康连接发送字节码消息
+     * 没有可用的连接时 ByteBuf 资源会被回收
+     * @param byteBuf ByteBuf 对象
+     * @return 是否有可用的连接
+     */
+    public boolean sendMessageBinary(ByteBuf byteBuf) {
+        final P6eWebSocketClient client = next();
+        if (client == null) {
+            byteBuf.release();
+            return false;
+        }
+        client.sendMessageBinary(byteBuf);
+        return true;
+    }
+
+    /**
+     * 获取所有的成员
+     * @return 所有的成员，未连接的位置为 null
+     */
+    public List<P6eWebSocketClient> getMembers() {
+        final List<P6eWebSocketClient> result = new ArrayList<>(members.length());
+        for (int i = 0; i < members.length(); i++) {
+            result.add(members.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 获取健康的连接数量
+     * @return 健康的连接数量
+     */
+    public int getHealthyCount() {
+        int count = 0;
+        for (int i = 0; i < members.length(); i++) {
+            if (isHealthy(members.get(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 关闭连接池和所有的连接
+     */
+    public void close() {
+        closed = true;
+        for (int i = 0; i < members.length(); i++) {
+            final P6eWebSocketClient client = members.getAndSet(i, null);
+            if (client != null) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * 成员的回调，维护成员的状态后转发给用户的回调
+     */
+    private class Member implements P6eWebSocketBatchCallback {
+
+        /** 成员的下标 */
+        private final int index;
+
+        private Member(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onOpen(P6eWebSocketClient client) {
+            // 同一个位置只保留一个连接，位置已经被占用时关闭多余的连接
+            if (closed || !members.compareAndSet(index, null, client)) {
+                client.close();
+                return;
+            }
+            // 断线重连放弃后由连接池补充，断线重连重新握手成功后同一个重连对象只需要重新设置监听
+            final Reconnector reconnector = client.getChannel().attr(Reconnector.KEY).get();
+            if (reconnector != null) {
+                reconnector.setGiveUpListener(() -> replace(index));
+            }
+            callback.onOpen(client);
+        }
+
+        @Override
+        public void onClose(P6eWebSocketClient client) {
+            // 只有当前位置的成员断开才需要补充，配置了断线重连时由重连补充，重连放弃后再补充
+            if (client != null && members.compareAndSet(index, client, null)) {
+                final Config config = endpoints.get(index / sizePerEndpoint);
+                if (config.getReconnectPolicy() == null) {
+                    replace(index);
+                }
+            }
+            callback.onClose(client);
+        }
+
+        @Override
+        public void onError(P6eWebSocketClient client, Throwable throwable) {
+            callback.onError(client, throwable);
+        }
+
+        @Override
+        public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+            callback.onMessageText(client, message);
+        }
+
+        @Override
+        public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+            callback.onMessageBinary(client, message);
+        }
+
+        @Override
+        public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+            callback.onMessagePong(client, message);
+        }
+
+        @Override
+        public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+            callback.onMessagePing(client, message);
+        }
+
+        @Override
+        public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+            callback.onMessageContinuation(client, message);
+        }
+
+        @Override
+        public void onMessageBatch(P6eWebSocketClient client, List<WebSocketFrame> frames) {
+            ((P6eWebSocketBatchCallback) callback).onMessageBatch(client, frames);
+        }
+
+        @Override
+        public boolean isBatch() {
+            return P6eWebSocketBatchCallback.isBatch(callback);
+        }
+    }
+}
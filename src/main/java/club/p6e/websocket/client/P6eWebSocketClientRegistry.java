@@ -0,0 +1,120 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.AttributeKey;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 在线客户端的注册表
+ * 握手完成后注册，连接关闭后自动移除，通过 ChannelId 查找，遍历时不复制，
+ * 客户端同时按照所属的 EventLoop 分组，广播时每个 EventLoop 只提交一个任务，写入全部连接后统一 flush
+ * @author lidashuang
+ * @version 1.0
+ */
+public class P6eWebSocketClientRegistry {
+
+    /** channel 上绑定的注册表 */
+    public static final AttributeKey<P6eWebSocketClientRegistry> KEY = AttributeKey.valueOf("P6E_WS_REGISTRY");
+
+    /** 在线的客户端 */
+    private final Map<ChannelId, P6eWebSocketClient> clients = new ConcurrentHashMap<>();
+    /** 按照 EventLoop 分组的在线客户端 */
+    private final Map<EventLoop, Map<ChannelId, P6eWebSocketClient>> groups = new ConcurrentHashMap<>();
+
+    /**
+     * 注册客户端，连接关闭后自动移除
+     * @param client 客户端对象
+     */
+    public void register(P6eWebSocketClient client) {
+        final Channel channel = client.getChannel();
+        clients.put(channel.id(), client);
+        groups.computeIfAbsent(channel.eventLoop(), k -> new ConcurrentHashMap<>()).put(channel.id(), client);
+        channel.closeFuture().addListener((ChannelFutureListener) future -> unregister(client));
+    }
+
+    /**
+     * 移除客户端
+     * @param client 客户端对象
+     */
+    public void unregister(P6eWebSocketClient client) {
+        final Channel channel = client.getChannel();
+        clients.remove(channel.id(), client);
+        final Map<ChannelId, P6eWebSocketClient> group = groups.get(channel.eventLoop());
+        if (group != null) {
+            group.remove(channel.id(), client);
+        }
+    }
+
+    /**
+     * 通过 ChannelId 查找客户端
+     * @param id ChannelId 对象
+     * @return 客户端对象，不在线时为 null
+     */
+    public P6eWebSocketClient get(ChannelId id) {
+        return clients.get(id);
+    }
+
+    /**
+     * 获取所有在线的客户端
+     * 返回的是只读的视图，遍历时不复制，遍历过程中上线和下线的客户端不一定可见
+     * @return 在线的客户端
+     */
+    public Collection<P6eWebSocketClient> getClients() {
+        return Collections.unmodifiableCollection(clients.values());
+    }
+
+    /**
+     * 获取在线的客户端数量
+     * @return 客户端数量
+     */
+    public int size() {
+        return clients.size();
+    }
+
+    /**
+     * 向所有在线的客户端广播帧
+     * 每个客户端写入帧的 retainedDuplicate，内容只编码一次；每个 EventLoop 只提交一个任务，
+     * 先写入该 EventLoop 的全部连接再逐个 flush
+     * 和 sendMessageShared 一致，调用方仍然持有原始帧，可以继续广播或者发送，使用完成后由调用方 release
+     * @param frame 预先编码的消息帧
+     */
+    public void broadcast(WebSocketFrame frame) {
+        for (final Map.Entry<EventLoop, Map<ChannelId, P6eWebSocketClient>> entry : groups.entrySet()) {
+            final Collection<P6eWebSocketClient> group = entry.getValue().values();
+            if (group.isEmpty()) {
+                continue;
+            }
+            // 每个任务持有一个引用，调用方在任务执行前 release 原始帧也不会影响发送
+            final WebSocketFrame shared = frame.retainedDuplicate();
+            try {
+                entry.getKey().execute(() -> {
+                    try {
+                        for (final P6eWebSocketClient client : group) {
+                            final Channel channel = client.getChannel();
+                            if (channel.isActive()) {
+                                channel.write(shared.retainedDuplicate(), channel.voidPromise());
+                            }
+                        }
+                        for (final P6eWebSocketClient client : group) {
+                            client.getChannel().flush();
+                        }
+                    } finally {
+                        shared.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // EventLoop 已经关闭，连接也已经关闭
+                shared.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 从收到的消息中提取请求的 ID
+ * 用于 P6eWebSocketRequester 把响应和等待中的请求对应起来
+ * @author lidashuang
+ * @version 1.0
+ */
+public interface P6eWebSocketIdExtractor {
+
+    /** 消息不是响应时返回的 ID */
+    public static final long NO_ID = Long.MIN_VALUE;
+
+    /**
+     * 提取请求的 ID，不能修改 ByteBuf 的读写位置
+     * @param message 消息内容
+     * @return 请求的 ID，消息不是响应时返回 NO_ID
+     */
+    public long extract(ByteBuf message);
+
+}
@@ -0,0 +1,109 @@
+package club.p6e.websocket.client;
+
+import io.netty.handler.codec.http.websocketx.*;
+import io.netty.util.AttributeKey;
+
+/**
+ * 指标收集的接口
+ * 连接器和每个连接各有一个实例，实现需要是线程安全的，
+ * 帧和字节数在 EventLoop 线程中记录，回调耗时和排队耗时可能在线程池中记录
+ * @author lidashuang
+ * @version 1.0
+ */
+public interface P6eWebSocketMetrics {
+
+    /** channel 上绑定的连接指标 */
+    AttributeKey<P6eWebSocketMetrics> KEY = AttributeKey.valueOf("P6E_WS_METRICS");
+
+    /**
+     * 帧的类型
+     * @author lidashuang
+     * @version 1.0
+     */
+    enum FrameType {
+        /**
+         * 文本帧
+         */
+        TEXT,
+        /**
+         * 二进制帧
+         */
+        BINARY,
+        /**
+         * Ping 帧
+         */
+        PING,
+        /**
+         * Pong 帧
+         */
+        PONG,
+        /**
+         * 分片帧
+         */
+        CONTINUATION,
+        /**
+         * 关闭帧
+         */
+        CLOSE;
+
+        /**
+         * 获取帧的类型
+         * @param frame 帧对象
+         * @return 帧的类型
+         */
+        public static FrameType of(WebSocketFrame frame) {
+            if (frame instanceof TextWebSocketFrame) {
+                return TEXT;
+            } else if (frame instanceof BinaryWebSocketFrame) {
+                return BINARY;
+            } else if (frame instanceof PingWebSocketFrame) {
+                return PING;
+            } else if (frame instanceof PongWebSocketFrame) {
+                return PONG;
+            } else if (frame instanceof ContinuationWebSocketFrame) {
+                return CONTINUATION;
+            } else {
+                return CLOSE;
+            }
+        }
+    }
+
+    /**
+     * 接收到帧
+     * @param type 帧的类型
+     * @param bytes 帧内容的字节数
+     */
+    public void onFrameIn(FrameType type, int bytes);
+
+    /**
+     * 发送帧
+     * @param type 帧的类型
+     * @param bytes 帧内容的字节数
+     */
+    public void onFrameOut(FrameType type, int bytes);
+
+    /**
+     * 握手完成
+     * @param nanos 从发送握手请求到握手完成的耗时（纳秒）
+     */
+    public void onHandshake(long nanos);
+
+    /**
+     * 回调执行完成
+     * @param nanos 回调执行的耗时（纳秒）
+     */
+    public void onCallback(long nanos);
+
+    /**
+     * 异步回调开始执行
+     * @param nanos 在线程池中排队等待的耗时（纳秒）
+     */
+    public void onQueueWait(long nanos);
+
+    /**
+     * flush 时写缓冲区中等待写出的字节数
+     * @param bytes 等待写出的字节数
+     */
+    public void onWriteBufferFill(long bytes);
+
+}
@@ -0,0 +1,28 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.Channel;
+
+/**
+ * 指标收集的扩展点
+ * 通过 Connector.setMetricsProvider 设置，没有设置时不收集指标
+ * @author lidashuang
+ * @version 1.0
+ */
+public interface P6eWebSocketMetricsProvider {
+
+    /**
+     * 创建连接器的指标
+     * @param connector 连接器
+     * @return 连接器的指标
+     */
+    public P6eWebSocketMetrics connector(Connector connector);
+
+    /**
+     * 创建连接的指标
+     * @param connectorMetrics 连接所属连接器的指标
+     * @param channel channel 对象
+     * @return 连接的指标
+     */
+    public P6eWebSocketMetrics connection(P6eWebSocketMetrics connectorMetrics, Channel channel);
+
+}
@@ -0,0 +1,318 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 将单个连接收到的消息转换为 Reactive Streams 的 Publisher
+ * 作为回调函数传给连接器，只能有一个订阅者，订阅者 request 的数量用完后暂停读取 channel，
+ * 再次 request 后恢复读取，下游处理的压力通过 TCP 传递到服务端
+ * 需要使用同步回调（isAsync 为 false），异步回调的邮箱同样会修改 channel 的自动读取，两者不能同时使用
+ * 发布的帧为收到的原始文本帧、二进制帧和分片帧，保留 isFinalFragment 和 rsv，没有合并分片时订阅者通过
+ * isFinalFragment 判断消息的结束；订阅者使用完成后需要 release；Ping / Pong 帧不会发布
+ * 通过批量回调获取原始的帧，需要直接传给连接器或者使用转发 isBatch 的包装
+ * 订阅者取消订阅时关闭连接，连接关闭后缓存的帧发布完成再通知 onComplete
+ * 结束通知后不能再发布新的帧，不支持断线重连，重连后需要创建新的 Publisher
+ * onNext 在 EventLoop 线程中执行，不能阻塞，耗时的处理需要交给其它线程，处理完成后再 request
+ * @author lidashuang
+ * @version 1.0
+ */
+public class P6eWebSocketPublisher implements P6eWebSocketBatchCallback, Publisher<WebSocketFrame> {
+
+    /** 回调是否接管消息 ByteBuf 的所有权 */
+    private final boolean ownership;
+    /** 订阅者请求的数量，只在 EventLoop 线程中减少 */
+    private final AtomicLong demand = new AtomicLong(0);
+    /** 是否已经被订阅 */
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+    /** 等待发布的帧，只在 EventLoop 线程中访问 */
+    private final Queue<WebSocketFrame> buffer = new ArrayDeque<>();
+
+    /** 订阅者 */
+    private volatile Subscriber<? super WebSocketFrame> subscriber;
+    /** 连接的 channel，连接成功后赋值 */
+    private volatile Channel channel;
+    /** 是否已经取消订阅 */
+    private volatile boolean cancelled = false;
+    /** 连接是否已经关闭 */
+    private boolean closed = false;
+    /** 连接的错误，只在 EventLoop 线程中访问 */
+    private Throwable error;
+    /** 是否已经通知结束 */
+    private boolean terminated = false;
+    /** 等待执行 drain 的次数，只在 EventLoop 线程中访问，不为 0 时 drain 只增加次数，由正在执行的 drain 继续处理 */
+    private int wip = 0;
+
+    /**
+     * 构造方法初始化
+     * @param config 连接使用的配置文件对象，不能配置断线重连的策略
+     */
+    public P6eWebSocketPublisher(Config config) {
+        if (config.getReconnectPolicy() != null) {
+            throw new IllegalArgumentException("P6eWebSocketPublisher does not support reconnect policy, "
+                    + "the stream completes when the connection closes.");
+        }
+        this.ownership = config.isMessageOwnership();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super WebSocketFrame> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber is null.");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("P6eWebSocketPublisher only supports a single subscriber."));
+            return;
+        }
+        this.subscriber = subscriber;
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("request must be greater than 0, but was " + n + "."));
+                    return;
+                }
+                long current;
+                do {
+                    current = demand.get();
+                    if (current == Long.MAX_VALUE) {
+                        return;
+                    }
+                } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+                schedule();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                schedule();
+            }
+        });
+    }
+
+    /**
+     * 在 EventLoop 线程中发布缓存的帧，连接成功前只记录请求的数量
+     */
+    private void schedule() {
+        final Channel channel = this.channel;
+        if (channel != null) {
+            if (channel.eventLoop().inEventLoop()) {
+                drain();
+            } else {
+                channel.eventLoop().execute(this::drain);
+            }
+        }
+    }
+
+    /**
+     * 发布缓存的帧并根据请求的数量修改 channel 的自动读取，只在 EventLoop 线程中执行
+     * onNext 中调用 request 会再次进入 drain，这时只记录次数并返回，由外层的循环继续发布，
+     * 调用栈的深度不会随着发布的数量增加
+     */
+    private void drain() {
+        if (wip++ != 0) {
+            return;
+        }
+        int missed = 1;
+        for (;;) {
+            if (terminated) {
+                return;
+            }
+            if (cancelled) {
+                terminated = true;
+                release();
+                channel.close();
+                return;
+            }
+            final Subscriber<? super WebSocketFrame> subscriber = this.subscriber;
+            if (subscriber == null) {
+                // 还没有订阅者，收到的帧先缓存
+                channel.config().setAutoRead(false);
+            } else {
+                while (demand.get() > 0 && !buffer.isEmpty() && !cancelled && !terminated) {
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(buffer.poll());
+                }
+                if (terminated) {
+                    return;
+                }
+                if (cancelled) {
+                    // 回到循环的开始处理取消订阅
+                    continue;
+                }
+                if (closed && buffer.isEmpty()) {
+                    terminated = true;
+                    if (error == null) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onError(error);
+                    }
+                    return;
+                }
+                if (!closed) {
+                    final boolean read = demand.get() > 0 && buffer.isEmpty();
+                    if (channel.config().isAutoRead() != read) {
+                        channel.config().setAutoRead(read);
+                    }
+                }
+            }
+            missed = wip -= missed;
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 回收缓存的帧，只在 EventLoop 线程中执行
+     */
+    private void release() {
+        WebSocketFrame frame;
+        while ((frame = buffer.poll()) != null) {
+            frame.release();
+        }
+    }
+
+    /**
+     * 订阅者请求的数量不合法时关闭连接并通知错误
+     * @param throwable 错误对象
+     */
+    private void fail(Throwable throwable) {
+        final Subscriber<? super WebSocketFrame> subscriber = this.subscriber;
+        final Channel channel = this.channel;
+        if (channel == null) {
+            cancelled = true;
+            subscriber.onError(throwable);
+        } else {
+            channel.eventLoop().execute(() -> {
+                if (!terminated) {
+                    terminated = true;
+                    release();
+                    channel.close();
+                    if (subscriber != null) {
+                        subscriber.onError(throwable);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 收到消息后缓存并发布
+     * @param frame 帧对象
+     */
+    private void onMessage(WebSocketFrame frame) {
+        if (terminated || cancelled) {
+            frame.release();
+            return;
+        }
+        buffer.offer(frame);
+        drain();
+    }
+
+    /**
+     * 没有通过批量回调收到消息，只有消息的 ByteBuf，无法保留帧的分片标记，关闭连接并通知错误
+     * @param message 消息内容
+     */
+    private void unsupported(ByteBuf message) {
+        if (ownership) {
+            message.release();
+        }
+        fail(new IllegalStateException("P6eWebSocketPublisher requires batch delivery, "
+                + "pass it to the connector directly or use a wrapper that forwards isBatch."));
+    }
+
+    @Override
+    public void onOpen(P6eWebSocketClient client) {
+        if (client.getChannel().attr(Mailbox.KEY).get() != null) {
+            throw new IllegalStateException("P6eWebSocketPublisher requires synchronous callbacks (isAsync = false).");
+        }
+        this.channel = client.getChannel();
+        drain();
+    }
+
+    @Override
+    public void onClose(P6eWebSocketClient client) {
+        if (channel != null) {
+            closed = true;
+            drain();
+        } else {
+            final Subscriber<? super WebSocketFrame> subscriber = this.subscriber;
+            if (subscriber != null && !terminated) {
+                terminated = true;
+                subscriber.onError(new IOException("P6eWebSocketClient connection closed before handshake complete."));
+            }
+        }
+    }
+
+    @Override
+    public void onError(P6eWebSocketClient client, Throwable throwable) {
+        if (error == null) {
+            error = throwable;
+        }
+    }
+
+    @Override
+    public void onMessageBatch(P6eWebSocketClient client, List<WebSocketFrame> frames) {
+        // 回调默认在返回后回收帧，需要 retain 后再缓存
+        for (final WebSocketFrame frame : frames) {
+            onMessage(ownership ? frame : frame.retain());
+        }
+    }
+
+    @Override
+    public boolean isBatch() {
+        return true;
+    }
+
+    @Override
+    public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+        unsupported(message);
+    }
+
+    @Override
+    public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+        unsupported(message);
+    }
+
+    @Override
+    public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+        unsupported(message);
+    }
+
+    @Override
+    public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+        if (ownership) {
+            message.release();
+        }
+    }
+
+    @Override
+    public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+        if (ownership) {
+            message.release();
+        }
+    }
+}
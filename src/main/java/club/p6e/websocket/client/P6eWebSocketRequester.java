@@ -0,0 +1,270 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * 请求和响应的对应
+ * 作为单个连接的回调函数传给连接器，request 发送文本消息并返回等待响应的 CompletableFuture，
+ * 收到的文本消息通过 ID 提取器找到等待中的请求，提取不到 ID 的消息交给被包装的回调函数
+ * 等待中的请求保存在以 long 为 KEY 的表中，只在连接的 EventLoop 线程中访问，不需要加锁；
+ * 超时任务同样在 EventLoop 中调度，不需要额外的线程
+ * 响应到达时已经没有对应请求（超时或者重复）的消息会被丢弃
+ * CompletableFuture 在 EventLoop 线程中完成，耗时的后续处理需要使用 xxxAsync 方法交给其它线程
+ * 配置断线重连时，连接断开后等待中的请求以异常的形式完成，重连成功后继续通过新的连接发送请求，
+ * 重连的 channel 注册在原 channel 的 EventLoop 上，等待中的请求仍然只在同一个线程中访问
+ * 异步回调时 onOpen 在线程池中执行，可能晚于 connectAsync 返回的结果完成，需要在 onOpen 之后再发送请求
+ * @author lidashuang
+ * @version 1.0
+ */
+public class P6eWebSocketRequester implements P6eWebSocketCallback {
+
+    /** 注入日志对象 */
+    private static final Logger LOGGER = LoggerFactory.getLogger(P6eWebSocketRequester.class);
+
+    /**
+     * 等待中的请求
+     */
+    private static final class Pending {
+        /** 发送请求的客户端对象 */
+        private final P6eWebSocketClient client;
+        /** 等待响应的通知对象 */
+        private final CompletableFuture<String> future;
+        /** 超时任务 */
+        private ScheduledFuture<?> timeout;
+
+        private Pending(P6eWebSocketClient client, CompletableFuture<String> future) {
+            this.client = client;
+            this.future = future;
+        }
+    }
+
+    /** 回调是否接管消息 ByteBuf 的所有权 */
+    private final boolean ownership;
+    /** ID 提取器 */
+    private final P6eWebSocketIdExtractor extractor;
+    /** 被包装的回调函数 */
+    private final P6eWebSocketCallback callback;
+    /** 自增的请求 ID */
+    private final AtomicLong ids = new AtomicLong(0);
+    /** 等待中的请求，只在 EventLoop 线程中访问 */
+    private final LongObjectMap<Pending> pending = new LongObjectHashMap<>();
+    /** 客户端对象，连接成功后赋值 */
+    private volatile P6eWebSocketClient client;
+    /** 当前的连接是否已经关闭，重连成功后重置 */
+    private volatile boolean closed = false;
+
+    /**
+     * 构造方法初始化
+     * @param config 连接使用的配置文件对象
+     * @param extractor ID 提取器
+     * @param callback 被包装的回调函数，处理不是响应的消息和连接事件
+     */
+    public P6eWebSocketRequester(Config config, P6eWebSocketIdExtractor extractor, P6eWebSocketCallback callback) {
+        this.ownership = config.isMessageOwnership();
+        this.extractor = extractor;
+        this.callback = callback;
+    }
+
+    /**
+     * 生成新的请求 ID
+     * @return 请求 ID
+     */
+    public long nextId() {
+        return ids.incrementAndGet();
+    }
+
+    /**
+     * 生成新的请求 ID 并发送请求
+     * @param factory 根据请求 ID 生成消息内容
+     * @param timeout 超时时间（毫秒），小于等于 0 表示不超时
+     * @return 等待响应的通知对象
+     */
+    public CompletableFuture<String> request(LongFunction<? extends CharSequence> factory, long timeout) {
+        final long id = nextId();
+        return request(id, factory.apply(id), timeout);
+    }
+
+    /**
+     * 发送请求
+     * @param id 请求 ID，需要和消息内容中的 ID 一致
+     * @param content 消息内容
+     * @param timeout 超时时间（毫秒），小于等于 0 表示不超时
+     * @return 等待响应的通知对象，连接关闭、超时或者 ID 重复时以异常的形式完成
+     */
+    public CompletableFuture<String> request(long id, CharSequence content, long timeout) {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final P6eWebSocketClient client = this.client;
+        if (client == null || closed) {
+            future.completeExceptionally(new IOException("P6eWebSocketClient connection is not open."));
+            return future;
+        }
+        final Channel channel = client.getChannel();
+        if (channel.eventLoop().inEventLoop()) {
+            register(client, id, content, timeout, future);
+        } else {
+            channel.eventLoop().execute(() -> register(client, id, content, timeout, future));
+        }
+        return future;
+    }
+
+    /**
+     * 保存等待中的请求、调度超时任务并发送消息，只在 EventLoop 线程中执行
+     * @param client 客户端对象
+     * @param id 请求 ID
+     * @param content 消息内容
+     * @param timeout 超时时间（毫秒）
+     * @param future 等待响应的通知对象
+     */
+    private void register(P6eWebSocketClient client, long id, CharSequence content,
+                          long timeout, CompletableFuture<String> future) {
+        if (closed || !client.isOpen()) {
+            future.completeExceptionally(new IOException("P6eWebSocketClient connection is not open."));
+            return;
+        }
+        if (pending.containsKey(id)) {
+            future.completeExceptionally(new IllegalStateException("request id " + id + " is already pending."));
+            return;
+        }
+        final Pending request = new Pending(client, future);
+        pending.put(id, request);
+        if (timeout > 0) {
+            request.timeout = client.getChannel().eventLoop().schedule(() -> {
+                if (pending.get(id) == request) {
+                    pending.remove(id);
+                    future.completeExceptionally(new TimeoutException(
+                            "request id " + id + " timed out after " + timeout + " ms."));
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        }
+        client.sendMessageText(content);
+    }
+
+    /**
+     * 完成等待中的请求，只在 EventLoop 线程中执行
+     * @param id 请求 ID
+     * @param content 响应内容
+     */
+    private void complete(long id, String content) {
+        final Pending request = pending.remove(id);
+        if (request == null) {
+            LOGGER.debug("[ P6eWebSocketClient ] ==> discard response of unknown request id " + id + ".");
+            return;
+        }
+        if (request.timeout != null) {
+            request.timeout.cancel(false);
+        }
+        request.future.complete(content);
+    }
+
+    /**
+     * 连接关闭时通知通过该连接发送的等待中的请求，只在 EventLoop 线程中执行
+     * 异步回调时关闭的通知可能晚于重连成功的通知，重连后发送的请求不受影响
+     * @param client 已经关闭的客户端对象
+     */
+    private void failAll(P6eWebSocketClient client) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        IOException exception = null;
+        final Iterator<LongObjectMap.PrimitiveEntry<Pending>> iterator = pending.entries().iterator();
+        while (iterator.hasNext()) {
+            final Pending request = iterator.next().value();
+            if (request.client == client) {
+                iterator.remove();
+                if (request.timeout != null) {
+                    request.timeout.cancel(false);
+                }
+                if (exception == null) {
+                    exception = new IOException("P6eWebSocketClient connection closed before response.");
+                }
+                request.future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    /**
+     * 在 EventLoop 线程中执行，异步回调时从线程池切换到 EventLoop
+     * @param client 客户端对象
+     * @param task 任务对象
+     */
+    private static void execute(P6eWebSocketClient client, Runnable task) {
+        if (client.getChannel().eventLoop().inEventLoop()) {
+            task.run();
+        } else {
+            client.getChannel().eventLoop().execute(task);
+        }
+    }
+
+    @Override
+    public void onOpen(P6eWebSocketClient client) {
+        // 重连成功后使用新的连接
+        this.client = client;
+        closed = false;
+        callback.onOpen(client);
+    }
+
+    @Override
+    public void onClose(P6eWebSocketClient client) {
+        if (this.client == client) {
+            closed = true;
+        }
+        if (this.client != null) {
+            execute(client, () -> failAll(client));
+        }
+        callback.onClose(client);
+    }
+
+    @Override
+    public void onError(P6eWebSocketClient client, Throwable throwable) {
+        callback.onError(client, throwable);
+    }
+
+    @Override
+    public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+        final long id = extractor.extract(message);
+        if (id == P6eWebSocketIdExtractor.NO_ID) {
+            callback.onMessageText(client, message);
+            return;
+        }
+        final String content = message.toString(CharsetUtil.UTF_8);
+        if (ownership) {
+            message.release();
+        }
+        execute(client, () -> complete(id, content));
+    }
+
+    @Override
+    public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+        callback.onMessageBinary(client, message);
+    }
+
+    @Override
+    public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+        callback.onMessagePong(client, message);
+    }
+
+    @Override
+    public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+        callback.onMessagePing(client, message);
+    }
+
+    @Override
+    public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+        callback.onMessageContinuation(client, message);
+    }
+}
@@ -0,0 +1,165 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通过 Reactive Streams 的 Subscriber 发送消息
+ * 每次最多向上游 request 一批帧，channel 可写并且未完成的数量低于一半时再 request，
+ * channel 不可写时停止 request，等到写缓冲区回落到低水位后继续，连接的写入速度决定上游的发送速度
+ * 其它线程中收到的帧提交到 EventLoop 写入，还没有写入的字节数和写缓冲区一起计算，超过高水位时同样停止 request
+ * 上游通知 onError 时关闭连接，onComplete 时不关闭连接；连接关闭时取消订阅
+ * @author lidashuang
+ * @version 1.0
+ */
+public class P6eWebSocketSubscriber implements Subscriber<WebSocketFrame> {
+
+    /** 默认每次 request 的数量 */
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    /** 注入日志对象 */
+    private static final Logger LOGGER = LoggerFactory.getLogger(P6eWebSocketSubscriber.class);
+
+    /** 连接的 channel */
+    private final Channel channel;
+    /** 每次 request 的数量 */
+    private final int batchSize;
+    /** 已经提交到 EventLoop 但还没有写入 channel 的字节数 */
+    private final AtomicLong queued = new AtomicLong(0);
+    /** 已经 request 但还没有收到的数量 */
+    private long outstanding = 0;
+    /** 上游的订阅 */
+    private Subscription subscription;
+    /** 是否已经结束 */
+    private boolean done = false;
+
+    /**
+     * 构造方法初始化
+     * @param client 发送消息的客户端对象
+     */
+    public P6eWebSocketSubscriber(P6eWebSocketClient client) {
+        this(client, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 构造方法初始化
+     * @param client 发送消息的客户端对象
+     * @param batchSize 每次 request 的数量
+     */
+    public P6eWebSocketSubscriber(P6eWebSocketClient client, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be greater than 0.");
+        }
+        this.channel = client.getChannel();
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (subscription == null) {
+            throw new NullPointerException("subscription is null.");
+        }
+        synchronized (this) {
+            if (this.subscription != null || done) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+        }
+        // 写缓冲区回落到低水位时继续 request
+        channel.pipeline().addFirst(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+                if (ctx.channel().isWritable()) {
+                    request();
+                }
+                super.channelWritabilityChanged(ctx);
+            }
+        });
+        channel.closeFuture().addListener((ChannelFutureListener) future -> cancel());
+        request();
+    }
+
+    @Override
+    public void onNext(WebSocketFrame frame) {
+        if (frame == null) {
+            throw new NullPointerException("frame is null.");
+        }
+        synchronized (this) {
+            outstanding--;
+        }
+        // 上游可能在不同的线程中调用 onNext，EventLoop 线程中直接写入会越过其它线程排队的写入，
+        // 只有没有排队的帧时才在 EventLoop 线程中直接写入，否则提交到 EventLoop 的任务队列保证发送的顺序
+        if (channel.eventLoop().inEventLoop() && queued.get() == 0) {
+            channel.writeAndFlush(frame);
+        } else {
+            final int size = frame.content().readableBytes();
+            queued.addAndGet(size);
+            try {
+                channel.eventLoop().execute(() -> {
+                    queued.addAndGet(-size);
+                    channel.writeAndFlush(frame);
+                    request();
+                });
+            } catch (RejectedExecutionException e) {
+                queued.addAndGet(-size);
+                frame.release();
+                LOGGER.error("[ P6eWebSocketClient ] ==> subscriber write rejected, cancel " + channel + ".", e);
+                cancel();
+                return;
+            }
+        }
+        request();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (throwable == null) {
+            throw new NullPointerException("throwable is null.");
+        }
+        synchronized (this) {
+            done = true;
+        }
+        LOGGER.error("[ P6eWebSocketClient ] ==> subscriber upstream error, close " + channel + ".", throwable);
+        channel.close();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            done = true;
+        }
+    }
+
+    /**
+     * channel 可写、排队的字节数没有达到高水位并且未完成的数量低于一半时补充到一批
+     * 加锁保证对 Subscription 的调用是串行的
+     */
+    private synchronized void request() {
+        if (subscription != null && !done && channel.isWritable()
+                && queued.get() < channel.bytesBeforeUnwritable() && outstanding <= batchSize / 2) {
+            final long n = batchSize - outstanding;
+            outstanding = batchSize;
+            subscription.request(n);
+        }
+    }
+
+    /**
+     * 连接关闭时取消订阅
+     */
+    private synchronized void cancel() {
+        if (subscription != null && !done) {
+            done = true;
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package club.p6e.websocket.client;
+
+/**
+ * 断线重连的策略
+ * 重连的间隔按照倍数递增，并且加入随机抖动，避免大量客户端在服务端重启后同时重连
+ * 连续失败达到阈值后熔断一段时间，熔断结束后再尝试一次
+ * 只对握手成功过的连接生效，第一次连接失败时不重连，由调用方根据连接的结果决定是否重试
+ * @author lidashuang
+ * @version 1.0
+ */
+public class ReconnectPolicy {
+
+    /** 首次重连的间隔（毫秒） */
+    private long initialDelay = 1000;
+    /** 最大重连的间隔（毫秒） */
+    private long maxDelay = 30000;
+    /** 重连间隔递增的倍数 */
+    private double multiplier = 2.0;
+    /** 随机抖动的比例，取值 0 ~ 1，实际间隔在 [间隔 * (1 - 比例), 间隔] 之间 */
+    private double jitter = 0.5;
+    /** 最大的重连次数，小于 0 表示不限制 */
+    private int maxAttempts = -1;
+    /** 连续失败多少次后熔断，小于等于 0 表示不熔断 */
+    private int breakerThreshold = 10;
+    /** 熔断的时间（毫秒） */
+    private long breakerOpenTime = 60000;
+
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public void setInitialDelay(long initialDelay) {
+        this.initialDelay = initialDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public void setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1.");
+        }
+        this.jitter = jitter;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getBreakerThreshold() {
+        return breakerThreshold;
+    }
+
+    public void setBreakerThreshold(int breakerThreshold) {
+        this.breakerThreshold = breakerThreshold;
+    }
+
+    public long getBreakerOpenTime() {
+        return breakerOpenTime;
+    }
+
+    public void setBreakerOpenTime(long breakerOpenTime) {
+        this.breakerOpenTime = breakerOpenTime;
+    }
+
+    @Override
+    public String toString() {
+        return "{"
+                + "\"initialDelay\":"
+                + initialDelay
+                + ",\"maxDelay\":"
+                + maxDelay
+                + ",\"multiplier\":"
+                + multiplier
+                + ",\"jitter\":"
+                + jitter
+                + ",\"maxAttempts\":"
+                + maxAttempts
+                + ",\"breakerThreshold\":"
+                + breakerThreshold
+                + ",\"breakerOpenTime\":"
+                + breakerOpenTime
+                + "}";
+    }
+}
@@ -0,0 +1,165 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 断线重连的执行对象
+ * 同一个连接多次重连共用一个对象，重连任务在原 channel 的 EventLoop 中调度
+ * 第一次握手成功后才开始生效，第一次连接失败时由调用方通过返回的结果处理，不会在后台重连
+ * 握手成功后达到最大重连次数或者被停止时通知放弃重连的监听，由监听方决定是否自己补充连接
+ * @author lidashuang
+ * @version 1.0
+ */
+public class Reconnector {
+
+    /** channel 上绑定的重连对象 */
+    public static final AttributeKey<Reconnector> KEY = AttributeKey.valueOf("P6E_WS_RECONNECTOR");
+
+    /** 注入日志对象 */
+    private static final Logger LOGGER = LoggerFactory.getLogger(Reconnector.class);
+
+    /** 连接器 */
+    private final Connector connector;
+    /** 配置文件对象 */
+    private final Config config;
+    /** 回调函数 */
+    private final P6eWebSocketCallback callback;
+    /** 是否异步回调 */
+    private final boolean isAsync;
+    /** 重连策略 */
+    private final ReconnectPolicy policy;
+
+    /** 重连的次数，连接成功后清零 */
+    private int attempts = 0;
+    /** 连续失败的次数，连接成功后清零 */
+    private int failures = 0;
+    /** 是否已经停止重连 */
+    private volatile boolean stopped = false;
+    /** 是否已经握手成功过，只在 channel 的 EventLoop 中修改 */
+    private boolean opened = false;
+    /** 放弃重连的监听，只通知一次 */
+    private final AtomicReference<Runnable> giveUpListener = new AtomicReference<>();
+
+    /**
+     * 构造方法初始化
+     * @param connector 连接器
+     * @param config 配置文件对象
+     * @param callback 回调函数
+     * @param isAsync 是否异步回调
+     */
+    public Reconnector(Connector connector, Config config, P6eWebSocketCallback callback, boolean isAsync) {
+        this.connector = connector;
+        this.config = config;
+        this.callback = callback;
+        this.isAsync = isAsync;
+        this.policy = config.getReconnectPolicy();
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public P6eWebSocketCallback getCallback() {
+        return callback;
+    }
+
+    public boolean isAsync() {
+        return isAsync;
+    }
+
+    /**
+     * 停止重连，主动关闭连接时调用
+     */
+    public void stop() {
+        giveUp();
+    }
+
+    /**
+     * 设置放弃重连的监听，握手成功后达到最大重连次数或者被停止时在停止的线程中通知一次
+     * @param listener 监听
+     */
+    void setGiveUpListener(Runnable listener) {
+        giveUpListener.set(listener);
+    }
+
+    /**
+     * 停止重连并通知放弃重连的监听
+     */
+    private void giveUp() {
+        stopped = true;
+        final Runnable listener = giveUpListener.getAndSet(null);
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 是否已经停止重连
+     * @return 是否已经停止重连
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * 握手成功，清空失败次数
+     */
+    void onOpen() {
+        opened = true;
+        attempts = 0;
+        failures = 0;
+    }
+
+    /**
+     * 连接关闭，根据策略在 channel 的 EventLoop 中调度重连
+     * @param channel 已经关闭的 channel
+     */
+    void onClose(Channel channel) {
+        if (!opened) {
+            // 第一次连接没有成功，失败已经通知调用方，不再重连
+            stopped = true;
+            return;
+        }
+        if (stopped || connector.isShutdown() || channel.eventLoop().isShuttingDown()) {
+            return;
+        }
+        if (policy.getMaxAttempts() >= 0 && attempts >= policy.getMaxAttempts()) {
+            LOGGER.info("[ P6eWebSocketClient ] ==> reconnect ( host: " + config.getHost()
+                    + " , port: " + config.getPort() + " ) gave up after " + attempts + " attempts.");
+            giveUp();
+            return;
+        }
+        attempts++;
+        failures++;
+        final long delay = delay();
+        LOGGER.info("[ P6eWebSocketClient ] ==> reconnect ( host: " + config.getHost()
+                + " , port: " + config.getPort() + " ) attempt " + attempts + " after " + delay + " ms.");
+        channel.eventLoop().schedule(() -> {
+            if (!stopped && !connector.isShutdown()) {
+                connector.reconnect(this, channel.eventLoop());
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 计算下次重连的间隔
+     * @return 间隔（毫秒）
+     */
+    private long delay() {
+        if (policy.getBreakerThreshold() > 0 && failures >= policy.getBreakerThreshold()) {
+            // 熔断，熔断结束后只尝试一次，失败则再次熔断
+            failures = policy.getBreakerThreshold() - 1;
+            return policy.getBreakerOpenTime();
+        }
+        final double exponential = policy.getInitialDelay() * Math.pow(policy.getMultiplier(), attempts - 1);
+        final long base = (long) Math.min(policy.getMaxDelay(), exponential);
+        return base - (long) (base * policy.getJitter() * ThreadLocalRandom.current().nextDouble());
+    }
+}
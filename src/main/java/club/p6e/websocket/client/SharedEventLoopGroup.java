@@ -0,0 +1,116 @@
+package club.p6e.websocket.client;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 进程内共享的 EventLoopGroup
+ * 每种网络传输实现共用一个 EventLoopGroup，按照引用计数管理，
+ * 最后一个连接器释放后才关闭，线程数量不会随着连接器的增加而增加
+ * @author lidashuang
+ * @version 1.0
+ */
+public final class SharedEventLoopGroup {
+
+    /** 线程名称 */
+    private static final String POOL_NAME = "P6E_WS_ELG";
+    /** 注入日志对象 */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedEventLoopGroup.class);
+    /** 共享的 EventLoopGroup */
+    private static final Map<Transport, Entry> GROUPS = new EnumMap<>(Transport.class);
+
+    /** 线程数量，0 表示使用 Netty 的默认数量 */
+    private static int threads = 0;
+    /** 线程工厂，可以通过自定义的线程工厂绑定 CPU */
+    private static ThreadFactory threadFactory = null;
+
+    /**
+     * 引用计数的 EventLoopGroup
+     */
+    private static final class Entry {
+        private final EventLoopGroup group;
+        private int references = 0;
+
+        private Entry(EventLoopGroup group) {
+            this.group = group;
+        }
+    }
+
+    private SharedEventLoopGroup() {
+    }
+
+    /**
+     * 配置共享 EventLoopGroup 的线程
+     * 只对之后创建的 EventLoopGroup 生效
+     * @param threads 线程数量，0 表示使用 Netty 的默认数量
+     */
+    public static synchronized void configure(int threads) {
+        configure(threads, null);
+    }
+
+    /**
+     * 配置共享 EventLoopGroup 的线程
+     * 只对之后创建的 EventLoopGroup 生效，需要绑定 CPU 时可以传入支持 CPU 亲和性的线程工厂
+     * @param threads 线程数量，0 表示使用 Netty 的默认数量
+     * @param threadFactory 线程工厂，为 null 时使用默认的线程工厂
+     */
+    public static synchronized void configure(int threads, ThreadFactory threadFactory) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads must not be less than 0.");
+        }
+        SharedEventLoopGroup.threads = threads;
+        SharedEventLoopGroup.threadFactory = threadFactory;
+    }
+
+    /**
+     * 获取共享的 EventLoopGroup，引用计数加一
+     * @param transport 网络传输的实现方式
+     * @return EventLoopGroup 对象
+     */
+    public static synchronized EventLoopGroup acquire(Transport transport) {
+        final Transport resolved = transport.resolve();
+        Entry entry = GROUPS.get(resolved);
+        if (entry == null || entry.group.isShuttingDown()) {
+            entry = new Entry(resolved.newEventLoopGroup(threads, threadFactory == null
+                    ? new DefaultThreadFactory(POOL_NAME + "_" + resolved) : threadFactory));
+            GROUPS.put(resolved, entry);
+            LOGGER.info("[ P6eWebSocketClient ] ==> shared event loop group ( " + resolved + " ) created.");
+        }
+        entry.references++;
+        return entry.group;
+    }
+
+    /**
+     * 释放共享的 EventLoopGroup，引用计数减一，为 0 时关闭
+     * @param group EventLoopGroup 对象
+     */
+    public static synchronized void release(EventLoopGroup group) {
+        for (final Map.Entry<Transport, Entry> item : GROUPS.entrySet()) {
+            final Entry entry = item.getValue();
+            if (entry.group == group) {
+                if (--entry.references <= 0) {
+                    GROUPS.remove(item.getKey());
+                    entry.group.shutdownGracefully();
+                    LOGGER.info("[ P6eWebSocketClient ] ==> shared event loop group ( " + item.getKey() + " ) closed.");
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 获取共享 EventLoopGroup 的引用数量
+     * @param transport 网络传输的实现方式
+     * @return 引用数量
+     */
+    public static synchronized int references(Transport transport) {
+        final Entry entry = GROUPS.get(transport.resolve());
+        return entry == null ? 0 : entry.references;
+    }
+}
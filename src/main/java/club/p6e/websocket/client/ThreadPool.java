@@ -3,7 +3,7 @@ package club.p6e.websocket.client;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -32,8 +32,9 @@ public class ThreadPool {
             } catch (Exception e) {
                 corePoolSize = 8;
             }
-            setThreadPoolExecutor(new ThreadPoolExecutor(corePoolSize, Integer.MAX_VALUE, 60L,
-                    TimeUnit.SECONDS, new SynchronousQueue<>(), new DefaultThreadFactory(POOL_NAME)));
+            // 固定数量的线程，每个连接通过邮箱顺序执行，同一时刻只占用一个线程
+            setThreadPoolExecutor(new ThreadPoolExecutor(corePoolSize, corePoolSize, 60L,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DefaultThreadFactory(POOL_NAME)));
         } else {
             throw new RuntimeException(ThreadPool.class
                     + " thread pool has been initialized and does not need to be reinitialized.");
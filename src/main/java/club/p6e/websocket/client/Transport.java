@@ -0,0 +1,157 @@
+package club.p6e.websocket.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 网络传输的实现方式
+ * @author lidashuang
+ * @version 1.0
+ */
+public enum Transport {
+
+    /**
+     * 自动选择，按照 IO_URING / EPOLL / NIO 的顺序使用第一个可用的实现
+     */
+    AUTO,
+    /**
+     * JDK NIO
+     */
+    NIO,
+    /**
+     * Linux 原生 epoll
+     */
+    EPOLL,
+    /**
+     * Linux 原生 io_uring，需要引入 netty-incubator-transport-native-io_uring
+     */
+    IO_URING;
+
+    /** io_uring 的包名 */
+    private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring.";
+
+    /**
+     * 自动选择当前环境可用的实现
+     * @return 可用的实现
+     */
+    public static Transport detect() {
+        if (IO_URING.isAvailable()) {
+            return IO_URING;
+        } else if (EPOLL.isAvailable()) {
+            return EPOLL;
+        } else {
+            return NIO;
+        }
+    }
+
+    /**
+     * 根据 channel 的类型获取实现方式
+     * @param channelClass channel 的类型
+     * @return 实现方式
+     */
+    public static Transport of(Class<? extends Channel> channelClass) {
+        if (EpollSocketChannel.class.isAssignableFrom(channelClass)) {
+            return EPOLL;
+        } else if (channelClass.getName().startsWith(IO_URING_PACKAGE)) {
+            return IO_URING;
+        } else {
+            return NIO;
+        }
+    }
+
+    /**
+     * 将 AUTO 转换为具体的实现
+     * @return 具体的实现
+     */
+    public Transport resolve() {
+        return this == AUTO ? detect() : this;
+    }
+
+    /**
+     * 当前环境是否可用
+     * @return 是否可用
+     */
+    public boolean isAvailable() {
+        switch (this) {
+            case AUTO:
+            case NIO:
+                return true;
+            case EPOLL:
+                try {
+                    return Epoll.isAvailable();
+                } catch (Throwable e) {
+                    return false;
+                }
+            case IO_URING:
+                try {
+                    return (Boolean) Class.forName(IO_URING_PACKAGE + "IOUring").getMethod("isAvailable").invoke(null);
+                } catch (Throwable e) {
+                    return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 创建 EventLoopGroup
+     * @param threads 线程数量，0 表示使用 Netty 的默认数量
+     * @param threadFactory 线程工厂，可以为 null
+     * @return EventLoopGroup 对象
+     */
+    public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+        switch (resolve()) {
+            case EPOLL:
+                return new EpollEventLoopGroup(threads, threadFactory);
+            case IO_URING:
+                try {
+                    return (EventLoopGroup) Class.forName(IO_URING_PACKAGE + "IOUringEventLoopGroup")
+                            .getConstructor(int.class, ThreadFactory.class).newInstance(threads, threadFactory);
+                } catch (ReflectiveOperationException e) {
+                    throw new RuntimeException(e);
+                }
+            default:
+                return new NioEventLoopGroup(threads, threadFactory);
+        }
+    }
+
+    /**
+     * 获取 channel 的类型
+     * @return channel 的类型
+     */
+    @SuppressWarnings("unchecked")
+    public Class<? extends Channel> channelClass() {
+        switch (resolve()) {
+            case EPOLL:
+                return EpollSocketChannel.class;
+            case IO_URING:
+                try {
+                    return (Class<? extends Channel>) Class.forName(IO_URING_PACKAGE + "IOUringSocketChannel");
+                } catch (ClassNotFoundException e) {
+                    throw new RuntimeException(e);
+                }
+            default:
+                return NioSocketChannel.class;
+        }
+    }
+
+    /**
+     * 设置实现方式特有的 Bootstrap 属性
+     * @param bootstrap Netty 的 Bootstrap
+     */
+    public void options(Bootstrap bootstrap) {
+        if (resolve() == EPOLL) {
+            // 立即发送 ACK，降低请求响应类消息的延迟
+            bootstrap.option(EpollChannelOption.TCP_QUICKACK, true);
+        }
+    }
+}
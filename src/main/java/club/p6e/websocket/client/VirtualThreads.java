@@ -0,0 +1,69 @@
+package club.p6e.websocket.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 执行回调的虚拟线程
+ * 项目基于 Java 8 编译，通过反射创建虚拟线程，
+ * 运行环境不支持虚拟线程（Java 21 以下，或者 Java 19 / 20 没有开启预览特性）时使用 ThreadPool 执行
+ * @author lidashuang
+ * @version 1.0
+ */
+public final class VirtualThreads {
+
+    /** 虚拟线程名称 */
+    private static final String THREAD_NAME = "P6E_WS_VT-";
+    /** 注入日志对象 */
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+    /** 每个任务一个虚拟线程的执行器，不支持虚拟线程时为 null */
+    private static final ExecutorService EXECUTOR = create();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 通过反射创建执行器
+     * @return 执行器，不支持虚拟线程时为 null
+     */
+    private static ExecutorService create() {
+        try {
+            // Thread.ofVirtual().name(THREAD_NAME, 0).factory()
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME, 0L);
+            final ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            // Executors.newThreadPerTaskExecutor(threadFactory)
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+        } catch (Throwable e) {
+            LOGGER.debug("[ P6eWebSocketClient ] ==> virtual thread is not available, " + e);
+            return null;
+        }
+    }
+
+    /**
+     * 当前环境是否支持虚拟线程
+     * @return 是否支持虚拟线程
+     */
+    public static boolean isAvailable() {
+        return EXECUTOR != null;
+    }
+
+    /**
+     * 执行任务
+     * 支持虚拟线程时在新的虚拟线程中执行，否则交给 ThreadPool 执行
+     * @param runnable 任务对象
+     */
+    public static void execute(Runnable runnable) {
+        if (EXECUTOR == null) {
+            ThreadPool.execute(runnable);
+        } else {
+            EXECUTOR.execute(runnable);
+        }
+    }
+}
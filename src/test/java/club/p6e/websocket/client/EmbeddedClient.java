@@ -0,0 +1,126 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.base64.Base64;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.util.CharsetUtil;
+
+import java.security.MessageDigest;
+import java.util.function.Function;
+
+/**
+ * 在 EmbeddedChannel 中完成握手的客户端，测试 Handler 时不需要真实的服务端
+ * @author lidashuang
+ * @version 1.0
+ */
+final class EmbeddedClient {
+
+    /** 连接的地址 */
+    static final String URL = "ws://127.0.0.1:8080/ws";
+
+    /** RFC 6455 规定的握手 GUID */
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private EmbeddedClient() {
+    }
+
+    /**
+     * 创建 channel，不完成握手
+     * @param config 配置文件对象
+     * @param callback 回调函数
+     * @return channel 对象
+     */
+    static EmbeddedChannel create(Config config, P6eWebSocketCallback callback) {
+        return create(config, channel -> callback);
+    }
+
+    /**
+     * 创建 channel，不完成握手
+     * @param config 配置文件对象
+     * @param callback 根据 channel 创建回调函数，异步回调需要绑定 channel
+     * @return channel 对象
+     */
+    static EmbeddedChannel create(Config config, Function<Channel, P6eWebSocketCallback> callback) {
+        return new EmbeddedChannel(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                channel.pipeline().addLast(new HttpClientCodec(), new Handler(config, callback.apply(channel)));
+            }
+        });
+    }
+
+    /**
+     * 创建 channel 并完成握手
+     * @param config 配置文件对象
+     * @param callback 回调函数
+     * @return channel 对象
+     */
+    static EmbeddedChannel open(Config config, P6eWebSocketCallback callback) {
+        return open(config, channel -> callback);
+    }
+
+    /**
+     * 创建 channel 并完成握手
+     * @param config 配置文件对象
+     * @param callback 根据 channel 创建回调函数，异步回调需要绑定 channel
+     * @return channel 对象
+     */
+    static EmbeddedChannel open(Config config, Function<Channel, P6eWebSocketCallback> callback) {
+        final EmbeddedChannel channel = create(config, callback);
+        handshake(channel);
+        return channel;
+    }
+
+    /**
+     * 读取客户端发出的握手请求，写入服务端的握手响应
+     * @param channel channel 对象
+     */
+    static void handshake(EmbeddedChannel channel) {
+        final ByteBuf request = channel.readOutbound();
+        final String content;
+        try {
+            content = request.toString(CharsetUtil.US_ASCII);
+        } finally {
+            request.release();
+        }
+        String key = null;
+        for (final String line : content.split("\r\n")) {
+            if (line.regionMatches(true, 0, "sec-websocket-key:", 0, 18)) {
+                key = line.substring(18).trim();
+            }
+        }
+        if (key == null) {
+            throw new IllegalStateException("handshake request without sec-websocket-key.");
+        }
+        final String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n";
+        channel.writeInbound(Unpooled.copiedBuffer(response, CharsetUtil.US_ASCII));
+        channel.runPendingTasks();
+    }
+
+    /**
+     * 计算握手响应的 Sec-WebSocket-Accept
+     * @param key 握手请求的 Sec-WebSocket-Key
+     * @return Sec-WebSocket-Accept 的内容
+     */
+    private static String accept(String key) {
+        try {
+            final byte[] sha1 = MessageDigest.getInstance("SHA-1")
+                    .digest((key + GUID).getBytes(CharsetUtil.US_ASCII));
+            final ByteBuf encoded = Base64.encode(Unpooled.wrappedBuffer(sha1));
+            try {
+                return encoded.toString(CharsetUtil.US_ASCII);
+            } finally {
+                encoded.release();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
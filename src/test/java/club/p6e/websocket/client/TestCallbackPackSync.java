@@ -1,5 +1,12 @@
 package club.p6e.websocket.client;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
 /**
  * 同步回调测试
  * @author lidashuang
@@ -7,4 +14,90 @@ package club.p6e.websocket.client;
  */
 public class TestCallbackPackSync {
 
+    /**
+     * 只统计回调次数的指标
+     */
+    private static final class CallbackCounter implements P6eWebSocketMetrics {
+        /** 记录的回调次数 */
+        private int callbacks = 0;
+
+        @Override
+        public void onFrameIn(FrameType type, int bytes) {
+        }
+
+        @Override
+        public void onFrameOut(FrameType type, int bytes) {
+        }
+
+        @Override
+        public void onHandshake(long nanos) {
+        }
+
+        @Override
+        public void onCallback(long nanos) {
+            callbacks++;
+        }
+
+        @Override
+        public void onQueueWait(long nanos) {
+        }
+
+        @Override
+        public void onWriteBufferFill(long bytes) {
+        }
+    }
+
+    /**
+     * 收到文本消息时抛出异常的回调
+     */
+    private static final class ThrowingCallback implements P6eWebSocketCallback {
+        @Override
+        public void onOpen(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onClose(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onError(P6eWebSocketClient client, Throwable throwable) {
+        }
+
+        @Override
+        public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+            throw new IllegalStateException("callback failed.");
+        }
+
+        @Override
+        public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+        }
+    }
+
+    @Test
+    public void recordsCallbackThatThrows() {
+        final CallbackCounter metrics = new CallbackCounter();
+        final CallbackPackSync pack = new CallbackPackSync(new ThrowingCallback(), metrics);
+        pack.onMessageBinary(null, Unpooled.EMPTY_BUFFER);
+        assertEquals(1, metrics.callbacks);
+        try {
+            pack.onMessageText(null, Unpooled.EMPTY_BUFFER);
+            fail("callback exception was swallowed.");
+        } catch (IllegalStateException e) {
+            assertEquals("callback failed.", e.getMessage());
+        }
+        // 抛出异常的回调同样计入回调耗时
+        assertEquals(2, metrics.callbacks);
+    }
 }
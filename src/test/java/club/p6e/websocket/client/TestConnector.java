@@ -0,0 +1,79 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.Test;
+
+/**
+ * 连接器的测试
+ * @author lidashuang
+ * @version 1.0
+ */
+public class TestConnector {
+
+    /**
+     * 不做任何处理的回调
+     */
+    private static final class NoopCallback implements P6eWebSocketCallback {
+        @Override
+        public void onOpen(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onClose(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onError(P6eWebSocketClient client, Throwable throwable) {
+        }
+
+        @Override
+        public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+        }
+    }
+
+    /**
+     * 创建开启虚拟线程回调的配置文件对象
+     * @return 配置文件对象
+     */
+    private static Config virtualThreadConfig() {
+        final Config config = new Config(EmbeddedClient.URL);
+        config.setVirtualThread(true);
+        return config;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void syncConnectRejectsVirtualThread() {
+        final Connector connector = new Connector();
+        try {
+            connector.connect(virtualThreadConfig(), new NoopCallback(), false);
+        } finally {
+            connector.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void syncConnectAsyncRejectsVirtualThread() {
+        final Connector connector = new Connector();
+        try {
+            connector.connectAsync(virtualThreadConfig(), new NoopCallback(), false);
+        } finally {
+            connector.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 没有开启调试日志时，同步回调的帧分发不创建任何对象
+ * @author lidashuang
+ * @version 1.0
+ */
+public class TestHandlerAllocation {
+
+    /** 预热的次数，让分发的代码完成 JIT 编译 */
+    private static final int WARMUP = 50000;
+    /** 统计的次数 */
+    private static final int COUNT = 100000;
+
+    /**
+     * 不做任何处理的回调
+     */
+    private static final class NoopCallback implements P6eWebSocketCallback {
+        @Override
+        public void onOpen(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onClose(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onError(P6eWebSocketClient client, Throwable throwable) {
+        }
+
+        @Override
+        public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+        }
+    }
+
+    @Test
+    public void dispatchWithoutDebugAllocatesNothing() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+        assertFalse(LoggerFactory.getLogger(Handler.class).isDebugEnabled());
+
+        final EmbeddedChannel channel = EmbeddedClient.open(
+                new Config(EmbeddedClient.URL), new CallbackPackSync(new NoopCallback()));
+        // 同一个帧重复分发，每次分发后 Handler 回收一次，统计期间不需要创建新的帧
+        final TextWebSocketFrame frame = new TextWebSocketFrame(Unpooled.wrappedBuffer(new byte[64]));
+        frame.retain(WARMUP + COUNT);
+        dispatch(channel, frame, WARMUP);
+        final long id = Thread.currentThread().getId();
+        final long before = bean.getThreadAllocatedBytes(id);
+        dispatch(channel, frame, COUNT);
+        final long allocated = bean.getThreadAllocatedBytes(id) - before;
+
+        assertEquals(1, frame.refCnt());
+        frame.release();
+        channel.finishAndReleaseAll();
+        // 每个帧分配一个对象就会超过 COUNT * 16 字节，剩余的是统计本身的开销
+        assertTrue("frame dispatch allocated " + allocated + " bytes for " + COUNT + " frames.", allocated < COUNT);
+    }
+
+    /**
+     * 从 pipeline 的头部分发帧
+     * @param channel channel 对象
+     * @param frame 帧对象
+     * @param count 分发的次数
+     */
+    private static void dispatch(EmbeddedChannel channel, TextWebSocketFrame frame, int count) {
+        for (int i = 0; i < count; i++) {
+            channel.pipeline().fireChannelRead(frame);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package club.p6e.websocket.client;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 消息 ByteBuf 所有权的测试
+ * 默认由 Handler 在回调返回后回收，异步回调在线程池中执行结束后回收；开启所有权后由回调回收
+ * 运行时开启 paranoid 级别的泄漏检测，每个用例结束后触发检测并检查没有 LEAK 日志
+ * @author lidashuang
+ * @version 1.0
+ */
+public class TestHandlerOwnership {
+
+    /** 等待异步回调的时间（秒） */
+    private static final long TIMEOUT = 5;
+
+    /** 收集泄漏检测日志的 appender */
+    private static final ListAppender<ILoggingEvent> LEAKS = new ListAppender<>();
+
+    /** 执行异步回调的线程池 */
+    private ExecutorService executor;
+
+    /**
+     * 记录回调收到的消息和当时的引用计数
+     */
+    private static final class Recorder implements P6eWebSocketBatchCallback {
+        /** 是否批量回调 */
+        private final boolean batch;
+        /** 收到的消息 */
+        private final List<ByteBuf> messages = new ArrayList<>();
+        /** 回调时消息的引用计数 */
+        private final List<Integer> refCnts = new ArrayList<>();
+        /** 收到的批量消息 */
+        private final List<List<WebSocketFrame>> batches = new ArrayList<>();
+        /** 回调完成的通知 */
+        private final CountDownLatch latch;
+        /** 是否收到 onOpen */
+        private volatile boolean opened = false;
+
+        private Recorder(boolean batch, int count) {
+            this.batch = batch;
+            this.latch = new CountDownLatch(count);
+        }
+
+        private synchronized void record(ByteBuf message) {
+            messages.add(message);
+            refCnts.add(message.refCnt());
+            latch.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            assertTrue("callback timed out.", latch.await(TIMEOUT, TimeUnit.SECONDS));
+        }
+
+        @Override
+        public void onOpen(P6eWebSocketClient client) {
+            opened = true;
+        }
+
+        @Override
+        public void onClose(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onError(P6eWebSocketClient client, Throwable throwable) {
+        }
+
+        @Override
+        public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+            record(message);
+        }
+
+        @Override
+        public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+            record(message);
+        }
+
+        @Override
+        public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+            record(message);
+        }
+
+        @Override
+        public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+            record(message);
+        }
+
+        @Override
+        public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+            record(message);
+        }
+
+        @Override
+        public synchronized void onMessageBatch(P6eWebSocketClient client, List<WebSocketFrame> frames) {
+            batches.add(new ArrayList<>(frames));
+            for (final WebSocketFrame frame : frames) {
+                refCnts.add(frame.refCnt());
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public boolean isBatch() {
+            return batch;
+        }
+    }
+
+    @BeforeClass
+    public static void beforeClass() {
+        final Logger logger = (Logger) LoggerFactory.getLogger(ResourceLeakDetector.class);
+        LEAKS.start();
+        logger.addAppender(LEAKS);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        ((Logger) LoggerFactory.getLogger(ResourceLeakDetector.class)).detachAppender(LEAKS);
+        LEAKS.stop();
+    }
+
+    @Before
+    public void before() {
+        assertEquals(ResourceLeakDetector.Level.PARANOID, ResourceLeakDetector.getLevel());
+        executor = Executors.newSingleThreadExecutor();
+        LEAKS.list.clear();
+    }
+
+    @After
+    public void after() throws InterruptedException {
+        executor.shutdownNow();
+        // 泄漏的 ByteBuf 被回收后，下一次创建 ByteBuf 时输出 LEAK 日志
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            PooledByteBufAllocator.DEFAULT.buffer(8).release();
+        }
+        assertTrue("leak detected: " + LEAKS.list, LEAKS.list.isEmpty());
+    }
+
+    /**
+     * 创建配置文件对象
+     * @param ownership 回调是否接管消息 ByteBuf 的所有权
+     * @return 配置文件对象
+     */
+    private static Config config(boolean ownership) {
+        final Config config = new Config(EmbeddedClient.URL);
+        config.setMessageOwnership(ownership);
+        return config;
+    }
+
+    /**
+     * 创建内容为池化 ByteBuf 的帧，泄漏检测会跟踪池化的 ByteBuf
+     * @return 帧对象
+     */
+    private static List<WebSocketFrame> frames() {
+        final List<WebSocketFrame> frames = new ArrayList<>();
+        frames.add(new TextWebSocketFrame(false, 0, PooledByteBufAllocator.DEFAULT.directBuffer().writeByte('a')));
+        frames.add(new ContinuationWebSocketFrame(true, 0, PooledByteBufAllocator.DEFAULT.directBuffer().writeByte('b')));
+        frames.add(new BinaryWebSocketFrame(PooledByteBufAllocator.DEFAULT.directBuffer().writeByte(1)));
+        return frames;
+    }
+
+    /**
+     * 分发帧
+     * @param channel channel 对象
+     * @param frames 帧对象
+     */
+    private static void dispatch(EmbeddedChannel channel, List<WebSocketFrame> frames) {
+        for (final WebSocketFrame frame : frames) {
+            channel.pipeline().fireChannelRead(frame);
+        }
+        channel.pipeline().fireChannelReadComplete();
+    }
+
+    /**
+     * 等待引用计数变为指定的值，异步回调在回调返回后才回收
+     * @param frames 帧对象
+     * @param refCnt 引用计数
+     */
+    private static void awaitRefCnt(List<WebSocketFrame> frames, int refCnt) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        for (final WebSocketFrame frame : frames) {
+            while (frame.refCnt() != refCnt && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(refCnt, frame.refCnt());
+        }
+    }
+
+    @Test
+    public void syncReleasesAfterCallback() throws InterruptedException {
+        final Recorder recorder = new Recorder(false, 3);
+        final EmbeddedChannel channel = EmbeddedClient.open(config(false), new CallbackPackSync(recorder));
+        assertTrue(recorder.opened);
+        final List<WebSocketFrame> frames = frames();
+        dispatch(channel, frames);
+        recorder.await();
+        assertEquals(3, recorder.messages.size());
+        for (final int refCnt : recorder.refCnts) {
+            assertEquals(1, refCnt);
+        }
+        awaitRefCnt(frames, 0);
+        assertTrue(channel.isOpen());
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void asyncReleasesAfterCallback() throws InterruptedException {
+        final Recorder recorder = new Recorder(false, 3);
+        final Config config = config(false);
+        final EmbeddedChannel channel = EmbeddedClient.open(config,
+                ch -> new CallbackPackAsync(recorder, ch, config, executor));
+        final List<WebSocketFrame> frames = frames();
+        dispatch(channel, frames);
+        recorder.await();
+        // 交给线程池前 retain，Handler 回收后回调中仍然持有一个引用
+        for (final int refCnt : recorder.refCnts) {
+            assertTrue("refCnt in callback was " + refCnt + ".", refCnt >= 1);
+        }
+        awaitRefCnt(frames, 0);
+        assertTrue(channel.isOpen());
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void syncOwnershipLeavesMessageToCallback() throws InterruptedException {
+        final Recorder recorder = new Recorder(false, 3);
+        final EmbeddedChannel channel = EmbeddedClient.open(config(true), new CallbackPackSync(recorder));
+        final List<WebSocketFrame> frames = frames();
+        dispatch(channel, frames);
+        recorder.await();
+        awaitRefCnt(frames, 1);
+        for (final ByteBuf message : recorder.messages) {
+            assertTrue(message.release());
+        }
+        awaitRefCnt(frames, 0);
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void asyncOwnershipLeavesMessageToCallback() throws InterruptedException {
+        final Recorder recorder = new Recorder(false, 3);
+        final Config config = config(true);
+        final EmbeddedChannel channel = EmbeddedClient.open(config,
+                ch -> new CallbackPackAsync(recorder, ch, config, executor));
+        final List<WebSocketFrame> frames = frames();
+        dispatch(channel, frames);
+        recorder.await();
+        awaitRefCnt(frames, 1);
+        for (final ByteBuf message : recorder.messages) {
+            assertTrue(message.release());
+        }
+        awaitRefCnt(frames, 0);
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void batchReleasesAfterCallback() throws InterruptedException {
+        final Recorder recorder = new Recorder(true, 3);
+        final EmbeddedChannel channel = EmbeddedClient.open(config(false), new CallbackPackSync(recorder));
+        final List<WebSocketFrame> frames = frames();
+        // 控制帧不进入批量，单独回调
+        final PingWebSocketFrame ping = new PingWebSocketFrame(PooledByteBufAllocator.DEFAULT.directBuffer().writeByte(9));
+        channel.pipeline().fireChannelRead(ping);
+        dispatch(channel, frames);
+        recorder.await();
+        assertEquals(1, recorder.batches.size());
+        assertEquals(frames, recorder.batches.get(0));
+        assertEquals(1, recorder.messages.size());
+        assertEquals(0, ping.refCnt());
+        awaitRefCnt(frames, 0);
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void asyncBatchReleasesAfterCallback() throws InterruptedException {
+        final Recorder recorder = new Recorder(true, 3);
+        final Config config = config(false);
+        final EmbeddedChannel channel = EmbeddedClient.open(config,
+                ch -> new CallbackPackAsync(recorder, ch, config, executor));
+        final List<WebSocketFrame> frames = frames();
+        dispatch(channel, frames);
+        recorder.await();
+        for (final int refCnt : recorder.refCnts) {
+            assertTrue("refCnt in callback was " + refCnt + ".", refCnt >= 1);
+        }
+        awaitRefCnt(frames, 0);
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void batchOwnershipLeavesFramesToCallback() throws InterruptedException {
+        final Recorder recorder = new Recorder(true, 3);
+        final EmbeddedChannel channel = EmbeddedClient.open(config(true), new CallbackPackSync(recorder));
+        final List<WebSocketFrame> frames = frames();
+        dispatch(channel, frames);
+        recorder.await();
+        awaitRefCnt(frames, 1);
+        for (final WebSocketFrame frame : recorder.batches.get(0)) {
+            assertTrue(frame.release());
+        }
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void frameBeforeHandshakeIsReleased() {
+        final Recorder recorder = new Recorder(false, 1);
+        final EmbeddedChannel channel = EmbeddedClient.create(config(false), new CallbackPackSync(recorder));
+        // 握手完成前收到帧时关闭连接，之后的帧不会再到达 Handler
+        final WebSocketFrame frame = new TextWebSocketFrame(PooledByteBufAllocator.DEFAULT.directBuffer().writeByte('a'));
+        channel.pipeline().fireChannelRead(frame);
+        assertFalse(recorder.opened);
+        assertTrue(recorder.messages.isEmpty());
+        assertEquals(0, frame.refCnt());
+        assertFalse(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void pendingBatchIsReleasedOnClose() {
+        final Recorder recorder = new Recorder(true, 1);
+        final EmbeddedChannel channel = EmbeddedClient.open(config(false), new CallbackPackSync(recorder));
+        final List<WebSocketFrame> frames = frames();
+        // 读取结束前连接关闭，还没有批量回调的帧由 Handler 回收
+        for (final WebSocketFrame frame : frames) {
+            channel.pipeline().fireChannelRead(frame);
+        }
+        channel.close();
+        assertTrue(recorder.batches.isEmpty());
+        for (final WebSocketFrame frame : frames) {
+            assertEquals(0, frame.refCnt());
+        }
+        channel.finishAndReleaseAll();
+    }
+}
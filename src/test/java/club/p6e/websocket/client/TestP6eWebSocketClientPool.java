@@ -0,0 +1,171 @@
+package club.p6e.websocket.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 连接池的测试，连接本地的 WebSocket 服务
+ * @author lidashuang
+ * @version 1.0
+ */
+public class TestP6eWebSocketClientPool {
+
+    /** 等待连接状态变化的时间（秒） */
+    private static final long TIMEOUT = 10;
+
+    /** 服务端的 EventLoopGroup */
+    private EventLoopGroup serverGroup;
+    /** 服务端接受的连接 */
+    private ChannelGroup children;
+    /** 服务端监听的 channel */
+    private Channel server;
+    /** 服务端监听的端口 */
+    private int port;
+
+    /**
+     * 不做任何处理的回调
+     */
+    private static final class NoopCallback implements P6eWebSocketCallback {
+        @Override
+        public void onOpen(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onClose(P6eWebSocketClient client) {
+        }
+
+        @Override
+        public void onError(P6eWebSocketClient client, Throwable throwable) {
+        }
+
+        @Override
+        public void onMessageText(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessageBinary(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessagePong(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessagePing(P6eWebSocketClient client, ByteBuf message) {
+        }
+
+        @Override
+        public void onMessageContinuation(P6eWebSocketClient client, ByteBuf message) {
+        }
+    }
+
+    @Before
+    public void before() throws InterruptedException {
+        serverGroup = new NioEventLoopGroup(1);
+        children = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        port = ((InetSocketAddress) bind(0).localAddress()).getPort();
+    }
+
+    @After
+    public void after() throws InterruptedException {
+        stopServer();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    /**
+     * 启动服务端
+     * @param port 监听的端口，0 为随机端口
+     * @return 监听的 channel
+     */
+    private Channel bind(int port) throws InterruptedException {
+        server = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        children.add(channel);
+                        channel.pipeline().addLast(new HttpServerCodec(), new HttpObjectAggregator(65536),
+                                new WebSocketServerProtocolHandler("/ws"));
+                    }
+                })
+                .bind(port).sync().channel();
+        return server;
+    }
+
+    /**
+     * 停止服务端并关闭所有的连接
+     */
+    private void stopServer() throws InterruptedException {
+        if (server != null) {
+            server.close().sync();
+            server = null;
+        }
+        children.close().sync();
+    }
+
+    /**
+     * 等待健康的连接数量变为指定的值
+     * @param pool 连接池
+     * @param count 健康的连接数量
+     */
+    private static void awaitHealthy(P6eWebSocketClientPool pool, int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        while (pool.getHealthyCount() != count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, pool.getHealthyCount());
+    }
+
+    @Test
+    public void refillsAfterReconnectGivesUp() throws Exception {
+        final ReconnectPolicy policy = new ReconnectPolicy();
+        policy.setInitialDelay(50);
+        policy.setJitter(0);
+        policy.setMaxAttempts(1);
+        final Config config = new Config("ws://127.0.0.1:" + port + "/ws");
+        config.setReconnectPolicy(policy);
+        final Connector connector = new Connector();
+        final P6eWebSocketClientPool pool = new P6eWebSocketClientPool(connector, Collections.singletonList(config),
+                1, P6eWebSocketClientPool.Strategy.ROUND_ROBIN, new NoopCallback(), false);
+        pool.setReplaceDelay(100);
+        try {
+            pool.start().get(TIMEOUT, TimeUnit.SECONDS);
+            awaitHealthy(pool, 1);
+
+            // 服务端停止后唯一的一次重连失败，断线重连放弃
+            stopServer();
+            awaitHealthy(pool, 0);
+            Thread.sleep(500);
+
+            // 断线重连放弃后由连接池继续补充，服务端恢复后重新连接成功
+            bind(port);
+            awaitHealthy(pool, 1);
+        } finally {
+            pool.close();
+            connector.shutdown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package club.p6e.websocket.client;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Publisher 的测试
+ * @author lidashuang
+ * @version 1.0
+ */
+public class TestP6eWebSocketPublisher {
+
+    /** 缓存的帧的数量 */
+    private static final int COUNT = 10000;
+
+    /**
+     * 每收到一个帧再 request 一个的订阅者，记录收到的信号和 onNext 时调用栈的深度
+     */
+    private static final class OneByOneSubscriber implements Subscriber<WebSocketFrame> {
+        /** 订阅 */
+        private Subscription subscription;
+        /** 收到的帧的数量 */
+        private int received = 0;
+        /** onComplete 的次数 */
+        private int completed = 0;
+        /** 收到的错误 */
+        private final List<Throwable> errors = new ArrayList<>();
+        /** 结束后收到的信号的数量 */
+        private int afterTerminal = 0;
+        /** onNext 时调用栈的最小深度 */
+        private int minDepth = Integer.MAX_VALUE;
+        /** onNext 时调用栈的最大深度 */
+        private int maxDepth = 0;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(WebSocketFrame frame) {
+            if (completed > 0 || !errors.isEmpty()) {
+                afterTerminal++;
+            }
+            final int depth = Thread.currentThread().getStackTrace().length;
+            minDepth = Math.min(minDepth, depth);
+            maxDepth = Math.max(maxDepth, depth);
+            received++;
+            frame.release();
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (completed > 0 || !errors.isEmpty()) {
+                afterTerminal++;
+            }
+            errors.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (completed > 0 || !errors.isEmpty()) {
+                afterTerminal++;
+            }
+            completed++;
+        }
+    }
+
+    @Test
+    public void requestInsideOnNextDoesNotRecurse() {
+        final P6eWebSocketPublisher publisher = new P6eWebSocketPublisher(new Config(EmbeddedClient.URL));
+        final OneByOneSubscriber subscriber = new OneByOneSubscriber();
+        publisher.subscribe(subscriber);
+        final EmbeddedChannel channel = EmbeddedClient.open(new Config(EmbeddedClient.URL), new CallbackPackSync(publisher));
+        // 没有 request 时收到的帧全部缓存
+        for (int i = 0; i < COUNT; i++) {
+            channel.pipeline().fireChannelRead(new TextWebSocketFrame(
+                    PooledByteBufAllocator.DEFAULT.directBuffer().writeByte('a')));
+        }
+        channel.pipeline().fireChannelReadComplete();
+        channel.close();
+        assertEquals(0, subscriber.received);
+        assertEquals(0, subscriber.completed);
+
+        // EmbeddedChannel 的 EventLoop 就是当前线程，request 同步执行 drain
+        subscriber.subscription.request(1);
+
+        assertEquals(COUNT, subscriber.received);
+        assertEquals(1, subscriber.completed);
+        assertTrue("unexpected error: " + subscriber.errors, subscriber.errors.isEmpty());
+        assertEquals(0, subscriber.afterTerminal);
+        assertTrue("onNext re-entered drain, stack depth " + subscriber.minDepth + " ~ " + subscriber.maxDepth,
+                subscriber.maxDepth - subscriber.minDepth < 10);
+        assertFalse(channel.finishAndReleaseAll());
+    }
+}
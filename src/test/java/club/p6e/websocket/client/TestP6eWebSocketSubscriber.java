@@ -0,0 +1,156 @@
+package club.p6e.websocket.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Subscriber 的测试
+ * @author lidashuang
+ * @version 1.0
+ */
+public class TestP6eWebSocketSubscriber {
+
+    /** 每次 request 的数量 */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * 记录 request 数量的订阅
+     */
+    private static final class CountingSubscription implements Subscription {
+        /** request 的总数 */
+        private final AtomicLong requested = new AtomicLong(0);
+        /** 是否已经取消 */
+        private volatile boolean cancelled = false;
+
+        @Override
+        public void request(long n) {
+            requested.addAndGet(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * 创建帧
+     * @param size 内容的长度
+     * @return 帧对象
+     */
+    private static WebSocketFrame frame(int size) {
+        return new BinaryWebSocketFrame(Unpooled.wrappedBuffer(new byte[size]));
+    }
+
+    @Test
+    public void unwritableChannelStopsDemand() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final P6eWebSocketSubscriber subscriber = new P6eWebSocketSubscriber(new P6eWebSocketClient(channel), BATCH_SIZE);
+        final CountingSubscription subscription = new CountingSubscription();
+        subscriber.onSubscribe(subscription);
+        assertEquals(BATCH_SIZE, subscription.requested.get());
+
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        assertFalse(channel.isWritable());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            subscriber.onNext(frame(16));
+        }
+        // channel 不可写时用完了 request 的数量也不再 request
+        assertEquals(BATCH_SIZE, subscription.requested.get());
+
+        // 恢复可写的通知在 EventLoop 的任务中执行
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        channel.runPendingTasks();
+        assertEquals(2 * BATCH_SIZE, subscription.requested.get());
+        assertFalse(subscription.cancelled);
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void queuedWritesStopDemand() throws Exception {
+        final EventLoopGroup group = new DefaultEventLoopGroup(2);
+        final LocalAddress address = new LocalAddress("TestP6eWebSocketSubscriber");
+        final CountDownLatch resume = new CountDownLatch(1);
+        try {
+            final Channel server = new ServerBootstrap()
+                    .group(group)
+                    .channel(LocalServerChannel.class)
+                    .childHandler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ReferenceCountUtil.release(msg);
+                        }
+                    })
+                    .bind(address).sync().channel();
+            final Channel channel = new Bootstrap()
+                    .group(group)
+                    .channel(LocalChannel.class)
+                    .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(512, 1024))
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(address).sync().channel();
+            final P6eWebSocketSubscriber subscriber = new P6eWebSocketSubscriber(new P6eWebSocketClient(channel), BATCH_SIZE);
+            final CountingSubscription subscription = new CountingSubscription();
+            subscriber.onSubscribe(subscription);
+            assertEquals(BATCH_SIZE, subscription.requested.get());
+
+            // 阻塞 EventLoop，当前线程发送的帧都在任务队列中排队，写缓冲区一直是空的
+            final CountDownLatch blocked = new CountDownLatch(1);
+            channel.eventLoop().execute(() -> {
+                blocked.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            long sent = 0;
+            while (sent < subscription.requested.get() && sent < 100 * BATCH_SIZE) {
+                subscriber.onNext(frame(256));
+                sent++;
+            }
+            // 排队的字节数超过高水位后不再 request，上游只能发送第一批
+            assertEquals(BATCH_SIZE, sent);
+            assertEquals(BATCH_SIZE, subscription.requested.get());
+
+            resume.countDown();
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (subscription.requested.get() == BATCH_SIZE && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            // 排队的帧写入后继续 request
+            assertTrue(subscription.requested.get() > BATCH_SIZE);
+            assertFalse(subscription.cancelled);
+            channel.close().sync();
+            server.close().sync();
+        } finally {
+            resume.countDown();
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+}